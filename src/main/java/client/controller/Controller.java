@@ -55,7 +55,6 @@ public class Controller {
           multiplayerModel = MultiplayerTypeRacerClient.create();
 
           multiplayerModel.newGame(userName, serverAddress);
-          registerModelAtView(multiplayerModel);
         } catch (IOException e) {
           e.printStackTrace();
           view.showError("Could not establish a connection.");
@@ -71,8 +70,9 @@ public class Controller {
       protected void done() {
         if (isError) {
           view.setStartScreen();
+        } else {
+          registerModelAtView(multiplayerModel);
         }
-        view.setNewMultiPlayerGameScreen(multiplayerModel);
       }
     };
     connect.execute();
@@ -145,8 +145,6 @@ public class Controller {
         try {
           multiplayerModel = MultiplayerTypeRacerClient.create();
           multiplayerModel.joinGame(userName, serverAddress, gameIdInt);
-          registerModelAtView(multiplayerModel);
-
         } catch (IOException e) {
           e.printStackTrace();
           view.showError("Could not establish a connection.");
@@ -164,7 +162,7 @@ public class Controller {
       @Override
       protected void done() {
         if (!isError) {
-          view.setNewMultiPlayerGameScreen(multiplayerModel);
+          registerModelAtView(multiplayerModel);
         } else {
           view.setStartScreen();
         }
@@ -200,24 +198,20 @@ public class Controller {
   }
 
   /**
-   * Perform the action when user types a word.
-   *
-   * @param userInput The word typed by user
+   * Perform the action when user typed a word. The input is checked while it is typed, only the
+   * finished word is handed to the model, which tells the server.
    *
+   * @param model The multiplayer typeRacer client
+   * @param mistyped Whether the user made a mistake in the word
    */
-  public void checkType(MultiplayerTypeRacerClient model, String userInput) {
+  public void wordTyped(MultiplayerTypeRacerClient model, boolean mistyped) {
 
     new SwingWorker<Void, Void>() {
       @Override
       protected Void doInBackground() {
-        model.handleUserTyped(userInput);
+        model.handleWordTyped(mistyped);
         return null;
       }
-      
-      @Override
-      protected void done() {
-        view.setNewMultiPlayerGameScreen(model);
-      }
     }.execute();
   }
 
@@ -238,11 +232,6 @@ public class Controller {
         }
         return null;
       }
-
-      @Override
-      protected void done() {
-        view.setNewMultiPlayerGameScreen(model);
-      }
     }.execute();
   }
 
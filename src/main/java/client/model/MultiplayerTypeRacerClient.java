@@ -1,17 +1,24 @@
 package client.model;
 
 import client.view.game.Statistic;
-import com.google.gson.Gson;
 import communication.Connection;
+import communication.MessageRegistry;
 import communication.messages.FinishedWordRequest;
+import communication.messages.GameDoesNotExistResponse;
 import communication.messages.GameFinishedNotification;
+import communication.messages.HeartbeatNotification;
 import communication.messages.JoinGameRequest;
 import communication.messages.JoinGameResponse;
 import communication.messages.NewGameRequest;
 import communication.messages.PlayerFinishedWord;
 import communication.messages.PlayerJoinedNotification;
 import communication.messages.PlayerLeftNotification;
+import communication.messages.PlayerNameAlreadyExistsResponse;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.ProtocolHandshake;
 import communication.messages.StartGameRequest;
+import communication.messages.TextRequest;
+import communication.messages.TextResponse;
 import communication.messages.UpdateCountdownNotification;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
@@ -19,33 +26,60 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import server.model.GameState;
+import server.model.PlayerState;
+import server.model.TextToType;
 
 /**
  * Represents the game logic for a multiplayer game on the client side. This includes communication
  * with the server.
  */
 public class MultiplayerTypeRacerClient implements Closeable {
+  private static final MessageRegistry<MultiplayerTypeRacerClient> SERVER_MESSAGES =
+      new MessageRegistry<MultiplayerTypeRacerClient>()
+          .register(UpdateCountdownNotification.class,
+              MultiplayerTypeRacerClient::handleUpdateCountdownNotification)
+          .register(PlayerJoinedNotification.class,
+              MultiplayerTypeRacerClient::handlePlayerJoinedMessage)
+          .register(PlayerLeftNotification.class,
+              MultiplayerTypeRacerClient::handlePlayerLeftMessage)
+          .register(PlayerFinishedWord.class,
+              MultiplayerTypeRacerClient::handlePlayerFinishedMessage)
+          .register(ProgressUpdateNotification.class,
+              MultiplayerTypeRacerClient::handleProgressUpdate)
+          .register(GameFinishedNotification.class,
+              MultiplayerTypeRacerClient::handleGameFinished)
+          .register(HeartbeatNotification.class, (client, heartbeat) -> {
+            // Only keeps the connection checked
+          });
+
+  // Shared by all games of the client
+  private static final TextCache TEXT_CACHE = TextCache.inUserHome();
+
   private final ExecutorService executorService;
   private Connection connection;
   private static final int PORT = 4441;
+  private static final int HANDSHAKE_TIMEOUT_MILLIS = 3000;
 
   private String gameId;
   private String myName;
 
-  private GameState currentGameState;
+  // Full snapshot from the JoinGameResponse, later deltas are applied to copies of it
+  private volatile GameState currentGameState;
 
   private String fullText;
-  private String userInput;
   private int totalWord;
-  private boolean isTypedCorrect;
   private int wrongCounter;
   private int typeCounter;
   private int countdown;
+  private WordMatcher wordMatcher;
 
   private Instant startTime;
   private Instant stopTime;
@@ -61,12 +95,13 @@ public class MultiplayerTypeRacerClient implements Closeable {
     return gameId;
   }
 
-  public String getUserInput() {
-    return userInput;
-  }
-
-  public boolean isTypedCorrect() {
-    return isTypedCorrect;
+  /**
+   * Returns the matcher checking the input of the player, to be used in the event dispatch thread.
+   *
+   * @return The matcher of the current game
+   */
+  public WordMatcher getWordMatcher() {
+    return wordMatcher;
   }
 
   public String getMyName() {
@@ -102,14 +137,30 @@ public class MultiplayerTypeRacerClient implements Closeable {
    */
   public void newGame(String userName, String serverAddress)
       throws IOException, DuplicatePlayerNameException, UnknownGameIdException {
+    newGame(userName, serverAddress, null, null);
+  }
+
+  /**
+   * Send a message to the server to start a new game on a text of the given kind. The server falls
+   * back to a similar text if it has none of that kind.
+   *
+   * @param userName User name for the player
+   * @param serverAddress Address of the game server
+   * @param length Length of the text, "short", "medium" or "long", null for any
+   * @param difficulty Difficulty of the text, "easy", "normal" or "hard", null for any
+   * @throws IOException If there is a communication problem
+   * @throws DuplicatePlayerNameException If the player name already exists for the game id
+   * @throws UnknownGameIdException If the gameid is not recognized by server
+   */
+  public void newGame(String userName, String serverAddress, String length, String difficulty)
+      throws IOException, DuplicatePlayerNameException, UnknownGameIdException {
     myName = userName;
     countdown = -1;
     typeCounter = 0;
     wrongCounter = 0;
     connection = establishConnection(serverAddress, PORT);
 
-    String json = new Gson().toJson(new NewGameRequest(userName));
-    connection.writeJson(json);
+    connection.writeMessage(new NewGameRequest(userName, length, difficulty));
 
     finishConnectionSetup();
 
@@ -119,8 +170,33 @@ public class MultiplayerTypeRacerClient implements Closeable {
   public static class DuplicatePlayerNameException extends Exception {}
 
 
+  /**
+   * Connects to the server and asks for the binary protocol. Servers refusing it reply so and keep
+   * JSON. Servers not knowing the handshake do not reply at all, then a new connection is opened
+   * that speaks JSON right away.
+   */
   private static Connection establishConnection(final String serverAddress, final int port)
       throws IOException {
+    Connection connection = connect(serverAddress, port);
+    connection.writeMessage(new ProtocolHandshake(true));
+    connection.setReadTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+    Object reply;
+    try {
+      reply = connection.readMessage();
+    } catch (SocketTimeoutException e) {
+      connection.close();
+      return connect(serverAddress, port);
+    }
+    connection.setReadTimeout(0);
+    if (reply instanceof ProtocolHandshake && ((ProtocolHandshake) reply).isBinary()) {
+      connection.setBinaryReading(true);
+      connection.setBinaryWriting(true);
+    }
+    return connection;
+  }
+
+  private static Connection connect(final String serverAddress, final int port)
+      throws IOException {
     Socket socket = new Socket();
     socket.connect(new InetSocketAddress(serverAddress, port));
     return new Connection(socket);
@@ -135,26 +211,43 @@ public class MultiplayerTypeRacerClient implements Closeable {
     support.addPropertyChangeListener(changeListener);
   }
 
+  /**
+   * Remove a Property change listener from this class.
+   *
+   * @param changeListener The change listner
+   */
+  public void removePropertyChangeListener(PropertyChangeListener changeListener) {
+    support.removePropertyChangeListener(changeListener);
+  }
+
   private void finishConnectionSetup()
       throws IOException, DuplicatePlayerNameException, UnknownGameIdException {
 
-    String json = connection.readJson();
-    Gson gson = new Gson();
-    if (json.contains("PlayerNameAlreadyExistsResponse")) {
+    Object response = connection.readMessage();
+    if (response instanceof PlayerNameAlreadyExistsResponse) {
       throw new DuplicatePlayerNameException();
-    } else if (json.contains("GameDoesNotExistsResponse")) {
+    } else if (response instanceof GameDoesNotExistResponse) {
       throw new UnknownGameIdException();
-    } else if (json.contains("JoinGameResponse")) {
-      isTypedCorrect = true;
-      JoinGameResponse joinGameResponse = gson.fromJson(json, JoinGameResponse.class);
-      currentGameState = joinGameResponse.getCurrentGameState();
+    } else if (response instanceof JoinGameResponse) {
+      JoinGameResponse joinGameResponse = (JoinGameResponse) response;
+      GameState joinedState = joinGameResponse.getCurrentGameState();
+      List<Object> receivedMeanwhile = new ArrayList<>();
+      if (joinedState.getTextToType() == null) {
+        TextToType text = fetchText(joinGameResponse.getTextHash(), receivedMeanwhile);
+        joinedState = joinedState.withText(text);
+      }
+      currentGameState = joinedState;
       gameId = joinGameResponse.getGameId() + "";
       fullText = currentGameState.getTextToType().getFullText();
+      wordMatcher = new WordMatcher(currentGameState.getTextToType());
       totalWord = fullText.split(" ").length;
       if (myName.equals("")) {
         myName = "unnamed";
       }
       executorService.execute(() -> {
+        for (Object message : receivedMeanwhile) {
+          dispatchServerMessage(message);
+        }
         while (true) {
           try {
             receiveServerMessage();
@@ -167,26 +260,44 @@ public class MultiplayerTypeRacerClient implements Closeable {
 
   }
 
+  /**
+   * Takes the text with the given hash from the cache or else downloads it. Messages the server
+   * sends before the text are collected in the given list.
+   */
+  private TextToType fetchText(String hash, List<Object> receivedMeanwhile) throws IOException {
+    TextToType text = TEXT_CACHE.get(hash);
+    if (text != null) {
+      return text;
+    }
+    connection.writeMessage(new TextRequest());
+    while (true) {
+      Object message = connection.readMessage();
+      if (message instanceof TextResponse) {
+        String fullText = ((TextResponse) message).getFullText();
+        if (fullText == null || !TextToType.hashOf(fullText).equals(hash)) {
+          throw new IOException("Received text does not match its hash");
+        }
+        text = new TextToType(fullText);
+        TEXT_CACHE.put(text);
+        return text;
+      }
+      receivedMeanwhile.add(message);
+    }
+  }
+
   private void receiveServerMessage() throws IOException {
-    String json = connection.readJson();
-    Gson gson = new Gson();
-    if (json.contains("UpdateCountdownNotification")) {
-      handleUpdateCountdownNotification(gson.fromJson(json, UpdateCountdownNotification.class));
-    } else if (json.contains("PlayerJoinedNotification")) {
-      handlePlayerJoinedMessage(gson.fromJson(json, PlayerJoinedNotification.class));
-    } else if (json.contains("PlayerLeftNotification")) {
-      handlePlayerLeftMessage(gson.fromJson(json, PlayerLeftNotification.class));
-    } else if (json.contains("PlayerFinishedWord")) {
-      handlePlayerFinishedMessage(gson.fromJson(json, PlayerFinishedWord.class));
-    } else if (json.contains("GameFinishedNotification")) {
-      handleGameFinished(gson.fromJson(json, GameFinishedNotification.class));
-    } else {
+    dispatchServerMessage(connection.readMessage());
+  }
+
+  private void dispatchServerMessage(Object message) {
+    if (!SERVER_MESSAGES.dispatch(this, message)) {
       throw new AssertionError("Unknown communication");
     }
   }
 
   private void handleGameFinished(GameFinishedNotification message) {
-    currentGameState = message.getFinishedGameState();
+    currentGameState = currentGameState.withPlayerState(message.getPlayerName(),
+        new PlayerState(message.getWordProgress(), message.getWpm()));
 
     long gameTime = Duration.between(startTime, stopTime).toSeconds();
     double accuracy = 100 * (double) (totalWord - wrongCounter) / (double) totalWord;
@@ -205,54 +316,54 @@ public class MultiplayerTypeRacerClient implements Closeable {
     countdown = (int) message.getCountdown();
     if (countdown == 0) {
       startTime = Instant.now();
-      isTypedCorrect = true;
     }
     support.firePropertyChange("countdown", null, this);
   }
 
   private void handlePlayerFinishedMessage(PlayerFinishedWord message) {
-    currentGameState = message.getGameStateAfterFinishedWord();
-    isTypedCorrect = true;
+    currentGameState = currentGameState.withPlayerState(message.getPlayerName(),
+        new PlayerState(message.getWordProgress(), message.getWpm()));
+    support.firePropertyChange("GameState", null, this);
+  }
+
+  private void handleProgressUpdate(ProgressUpdateNotification message) {
+    GameState state = currentGameState;
+    for (int i = 0; i < message.getPlayerCount(); i++) {
+      state = state.withPlayerState(message.getPlayerName(i),
+          new PlayerState(message.getWordProgress(i), message.getWpm(i)));
+    }
+    currentGameState = state;
     support.firePropertyChange("GameState", null, this);
   }
 
   private void handlePlayerLeftMessage(PlayerLeftNotification message) {
-    currentGameState = message.getCurrentGameState();
+    currentGameState = currentGameState.withoutPlayer(message.getPlayerName());
     support.firePropertyChange("GameState", null, this);
   }
 
   private void handlePlayerJoinedMessage(PlayerJoinedNotification message) {
-    isTypedCorrect = true;
-    currentGameState = message.getCurrentGameState();
+    currentGameState = currentGameState.withPlayerState(message.getPlayerName(), new PlayerState());
     support.firePropertyChange("GameState", null, this);
   }
 
 
 
   /**
-   * Check if the word is conform to the Text. if correct also calculate wpm
+   * Count the current word as typed, calculate wpm and tell the server. The input is checked by the
+   * {@link WordMatcher} while it is typed.
    *
-   * @param userInput The word typed by user.
+   * @param mistyped Whether the player made a mistake in the word.
    */
-  public void handleUserTyped(String userInput) {
-    this.userInput = userInput;
-    String currentWord = currentGameState.getTextToType().getWord(typeCounter);
-
-
-
-    if (!userInput.equals(currentWord)) {
-      isTypedCorrect = false;
+  public void handleWordTyped(boolean mistyped) {
+    if (mistyped) {
       wrongCounter++;
-    } else {
-      isTypedCorrect = true;
-      wpm = calculateWpm();
-      typeCounter++;
-      String json = new Gson().toJson(new FinishedWordRequest(wpm));
-      try {
-        connection.writeJson(json);
-      } catch (IOException e) {
-        e.printStackTrace();
-      }
+    }
+    wpm = calculateWpm();
+    typeCounter++;
+    try {
+      connection.writeMessage(new FinishedWordRequest(wpm));
+    } catch (IOException e) {
+      e.printStackTrace();
     }
   }
 
@@ -294,13 +405,10 @@ public class MultiplayerTypeRacerClient implements Closeable {
     connection = establishConnection(serverAddress, PORT);
     JoinGameRequest joinGameRequest = new JoinGameRequest(gameId, userName);
 
-    Gson gson = new Gson();
-    String json = gson.toJson(joinGameRequest);
-    connection.writeJson(json);
+    connection.writeMessage(joinGameRequest);
     finishConnectionSetup();
     startTime = Instant.now();
     typeCounter = 0;
-    isTypedCorrect = true;
   }
 
   /**
@@ -310,9 +418,7 @@ public class MultiplayerTypeRacerClient implements Closeable {
    */
   public void startCountdown() throws IOException {
     StartGameRequest startGameRequest = new StartGameRequest();
-    Gson gson = new Gson();
-    String json = gson.toJson(startGameRequest);
-    connection.writeJson(json);
+    connection.writeMessage(startGameRequest);
   }
 
   /** When a given gameId is not known then throw out exception. */
@@ -0,0 +1,134 @@
+package client.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import server.model.TextToType;
+
+/**
+ * Keeps the texts of past games by their hash, so the client only downloads texts it has not
+ * played before. The texts played last are kept in memory, more of them in a directory. Both
+ * forget the least recently used texts first.
+ *
+ * <p>Files are checked against their hash when read, so a damaged file counts as a miss.
+ */
+class TextCache {
+  private static final int MEMORY_ENTRIES = 32;
+  private static final int DISK_ENTRIES = 1000;
+  // Hashes come from the server and become file names, so only well-formed ones are accepted
+  private static final Pattern HASH = Pattern.compile("[0-9a-f]{32}");
+  private static final String SUFFIX = ".txt";
+
+  private final Path directory;
+  private final Map<String, TextToType> memory =
+      new LinkedHashMap<String, TextToType>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextToType> eldest) {
+          return size() > MEMORY_ENTRIES;
+        }
+      };
+
+  /**
+   * Creates a cache keeping its files in the given directory.
+   *
+   * @param directory The directory, created when the first text is stored. {@code null} keeps the
+   *     texts in memory only.
+   */
+  TextCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a cache in the user's home directory.
+   *
+   * @return The cache
+   */
+  static TextCache inUserHome() {
+    return new TextCache(Paths.get(System.getProperty("user.home"), ".typeracer", "texts"));
+  }
+
+  /**
+   * Returns the text with the given hash.
+   *
+   * @param hash The hash, see {@link TextToType#hashOf(String)}
+   * @return The text or {@code null} if it is not cached
+   */
+  synchronized TextToType get(String hash) {
+    TextToType text = memory.get(hash);
+    if (text != null || directory == null || hash == null || !HASH.matcher(hash).matches()) {
+      return text;
+    }
+    Path file = directory.resolve(hash + SUFFIX);
+    try {
+      String fullText = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      if (!TextToType.hashOf(fullText).equals(hash)) {
+        Files.delete(file);
+        return null;
+      }
+      // The modification time orders the files by their last use
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      text = new TextToType(fullText);
+      memory.put(hash, text);
+      return text;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Stores a text under its hash.
+   *
+   * @param text The text
+   */
+  synchronized void put(TextToType text) {
+    String hash = text.getHash();
+    memory.put(hash, text);
+    if (directory == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory);
+      Path temporary = Files.createTempFile(directory, hash, ".tmp");
+      Files.write(temporary, text.getFullText().getBytes(StandardCharsets.UTF_8));
+      Files.move(temporary, directory.resolve(hash + SUFFIX),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      trim();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void trim() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      stream.forEach(files::add);
+    }
+    if (files.size() <= DISK_ENTRIES) {
+      return;
+    }
+    Map<Path, FileTime> lastUse = new HashMap<>();
+    for (Path file : files) {
+      lastUse.put(file, Files.getLastModifiedTime(file));
+    }
+    files.sort(Comparator.comparing(lastUse::get));
+    for (Path file : files.subList(0, files.size() - DISK_ENTRIES)) {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package client.model;
+
+import server.model.TextToType;
+
+/**
+ * Checks the input of the player against the text while it is typed. A change of the input is
+ * compared char by char from where it changed, so a keystroke at the end costs one comparison and
+ * nothing is allocated. A word is complete as soon as its last char is typed correctly.
+ *
+ * <p>A matcher is used by a single thread, the event dispatch thread of the game screen.
+ */
+public class WordMatcher {
+  private final TextToType text;
+  private int wordIndex;
+  private String word;
+  // Length of the start of the input that matches the word
+  private int correctLength;
+  private int typedLength;
+  private boolean mistyped;
+
+  /**
+   * Creates a matcher starting at the first word of the text.
+   *
+   * @param text the text to type
+   */
+  public WordMatcher(TextToType text) {
+    this.text = text;
+    word = text.getWord(0);
+  }
+
+  /**
+   * Checks the input after it changed.
+   *
+   * @param input the whole input typed for the current word
+   * @param changedFrom the index of the first char that changed
+   * @return {@code true} if the input is the current word
+   */
+  public boolean update(CharSequence input, int changedFrom) {
+    if (word == null) {
+      return false;
+    }
+    typedLength = input.length();
+    correctLength = Math.max(0, Math.min(correctLength, Math.min(changedFrom, typedLength)));
+    int end = Math.min(typedLength, word.length());
+    while (correctLength < end && input.charAt(correctLength) == word.charAt(correctLength)) {
+      correctLength++;
+    }
+    if (correctLength < typedLength) {
+      mistyped = true;
+    }
+    return isComplete();
+  }
+
+  /**
+   * Moves on to the next word of the text, with empty input.
+   */
+  public void nextWord() {
+    wordIndex++;
+    word = wordIndex < text.textLength() ? text.getWord(wordIndex) : null;
+    correctLength = 0;
+    typedLength = 0;
+    mistyped = false;
+  }
+
+  public boolean isComplete() {
+    return word != null && correctLength == word.length() && typedLength == correctLength;
+  }
+
+  /**
+   * Tells whether all words of the text are typed.
+   *
+   * @return {@code true} if there is no current word
+   */
+  public boolean isFinished() {
+    return word == null;
+  }
+
+  public int getWordIndex() {
+    return wordIndex;
+  }
+
+  public int getCorrectLength() {
+    return correctLength;
+  }
+
+  public int getTypedLength() {
+    return typedLength;
+  }
+
+  /**
+   * Tells whether a wrong char was typed in the current word, even if it was corrected since.
+   *
+   * @return {@code true} if the word was mistyped
+   */
+  public boolean isMistyped() {
+    return mistyped;
+  }
+}
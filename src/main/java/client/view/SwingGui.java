@@ -24,6 +24,7 @@ import javax.swing.WindowConstants;
 public class SwingGui extends JFrame {
   private final Controller controller;
   private MultiplayerTypeRacerClient model;
+  private GameScreen gameScreen;
 
   private static final int MINIMUM_FRAME_WIDTH = 800;
   private static final int MINIMUM_FRAME_HEIGHT = 400;
@@ -60,16 +61,24 @@ public class SwingGui extends JFrame {
    */
 
   public void setStartScreen() {
+    gameScreen = null;
     clearAllContent();
     add(StartScreen.create(controller));
     pack();
   }
 
-  /** Sets the new-game screen. This screen provides utilities to create a new TypeRacer game. */
+  /**
+   * Sets the new-game screen. This screen provides utilities to create a new TypeRacer game. The
+   * screen of a game is created once, it updates itself until another screen replaces it.
+   */
   public void setNewMultiPlayerGameScreen(MultiplayerTypeRacerClient game) {
+    if (gameScreen != null && gameScreen.getModel() == game) {
+      return;
+    }
     model = game;
     clearAllContent();
-    add(GameScreen.create(controller, game));
+    gameScreen = GameScreen.create(controller, game);
+    add(gameScreen);
     pack();
   }
 
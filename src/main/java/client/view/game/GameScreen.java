@@ -2,6 +2,7 @@ package client.view.game;
 
 import client.controller.Controller;
 import client.model.MultiplayerTypeRacerClient;
+import client.model.WordMatcher;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -13,9 +14,12 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
 import javax.swing.BorderFactory;
@@ -26,17 +30,35 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JTextPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 import javax.swing.event.AncestorEvent;
 import javax.swing.event.AncestorListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Segment;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import server.model.GameState;
 import server.model.PlayerState;
 
-/** Provides all necessary interactions and displays for playing TypeRacer. */
+/**
+ * Provides all necessary interactions and displays for playing TypeRacer. One screen shows one
+ * game for its whole duration and updates its parts in place. The screen listens to the model
+ * while it is displayed, the model's events are handled in the event dispatch thread.
+ */
 public class GameScreen extends JPanel {
   GridBagConstraints gbc = new GridBagConstraints();
-  Map<Object, Object> storeBar = new HashMap<>();
-  int key = 0;
   JTextPane text = new JTextPane();
+  private final MultiplayerTypeRacerClient model;
+  // The parts of the screen, they get the events of the model
+  private final List<PropertyChangeListener> parts = new ArrayList<>();
+  private final PropertyChangeListener modelListener = this::modelChanged;
+  // Names of the properties changed since the last update in the event dispatch thread
+  private final Set<String> changedProperties = new LinkedHashSet<>();
 
   /**
    * displays the screen when playing the game with its features.
@@ -45,7 +67,7 @@ public class GameScreen extends JPanel {
    * @param model model provides access to multiplayertyperacer
    */
   public GameScreen(Controller controller, MultiplayerTypeRacerClient model) {
-
+    this.model = model;
     setLayout(new GridBagLayout());
 
     // spread buttons away from each other
@@ -62,6 +84,62 @@ public class GameScreen extends JPanel {
     buttonQuit(controller, model);
   }
 
+  /**
+   * Returns the game shown by this screen.
+   *
+   * @return the model of the game
+   */
+  public MultiplayerTypeRacerClient getModel() {
+    return model;
+  }
+
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    model.addPropertyChangeListener(modelListener);
+    // Catches up on the changes made while the screen was not listening
+    synchronized (changedProperties) {
+      changedProperties.add("countdown");
+      changedProperties.add("GameState");
+    }
+    updateParts();
+  }
+
+  @Override
+  public void removeNotify() {
+    model.removePropertyChangeListener(modelListener);
+    super.removeNotify();
+  }
+
+  /**
+   * Called in the thread of the model. Many changes arriving before the event dispatch thread
+   * gets to them are shown with one update.
+   */
+  private void modelChanged(PropertyChangeEvent event) {
+    synchronized (changedProperties) {
+      boolean updatePending = !changedProperties.isEmpty();
+      changedProperties.add(event.getPropertyName());
+      if (updatePending) {
+        return;
+      }
+    }
+    SwingUtilities.invokeLater(this::updateParts);
+  }
+
+  private void updateParts() {
+    String[] properties;
+    synchronized (changedProperties) {
+      properties = changedProperties.toArray(new String[0]);
+      changedProperties.clear();
+    }
+    for (String property : properties) {
+      PropertyChangeEvent event = new PropertyChangeEvent(model, property, null, model);
+      for (PropertyChangeListener part : parts) {
+        part.propertyChange(event);
+      }
+    }
+  }
+
   /** Box to display Countdown till game starts at the top. */
   class CountdownBox implements PropertyChangeListener {
     JLabel countdown = new JLabel("...LOS!");
@@ -87,7 +165,7 @@ public class GameScreen extends JPanel {
       add(gameId, gbc);
 
       adjustTo(multiplayer);
-      multiplayer.addPropertyChangeListener(this);
+      parts.add(this);
     }
 
     @Override
@@ -106,13 +184,15 @@ public class GameScreen extends JPanel {
     }
   }
 
-  /** creates the ProgressBar on the GameScreen to show progress of the players. */
+  /**
+   * creates the ProgressBar on the GameScreen to show progress of the players. Every player keeps
+   * the row created when the player showed up, updates only change the values of the rows.
+   */
   public class ProgressBar implements PropertyChangeListener {
-    JProgressBar bar = new JProgressBar();
     JPanel panel;
-    JLabel label;
-    JLabel label2;
     GridBagConstraints gb = new GridBagConstraints();
+    // Rows in the order the players showed up
+    Map<String, PlayerRow> rows = new LinkedHashMap<>();
 
     ProgressBar(MultiplayerTypeRacerClient multiplayer) {
       panel = new JPanel();
@@ -128,41 +208,82 @@ public class GameScreen extends JPanel {
       panel.setBorder(border);
       add(panel);
       adjustTo(multiplayer);
-      multiplayer.addPropertyChangeListener(this);
+      parts.add(this);
     }
 
     @Override
     public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
       if (propertyChangeEvent.getPropertyName().equals("GameState")) {
-        panel.removeAll();
         adjustTo((MultiplayerTypeRacerClient) propertyChangeEvent.getNewValue());
       }
     }
 
     private void adjustTo(final MultiplayerTypeRacerClient player) {
-      Map<String, PlayerState> map = player.getCurrentGameState().getPlayerStateMap();
+      GameState state = player.getCurrentGameState();
+      Map<String, PlayerState> map = state.getPlayerStateMap();
+      int totalWord = state.getTextToType().textLength();
+      boolean layoutChanged = rows.keySet().removeIf(name -> {
+        if (map.containsKey(name)) {
+          return false;
+        }
+        rows.get(name).removeFrom(panel);
+        return true;
+      });
       for (Map.Entry<String, PlayerState> entry : map.entrySet()) {
-        bar = new JProgressBar();
-        bar.setPreferredSize(new Dimension(1000, 30));
-        String playername = entry.getKey();
-        label2 = new JLabel(playername);
-        gb.anchor = GridBagConstraints.FIRST_LINE_START;
-        panel.add(label2, gb);
-        int wpm = entry.getValue().getWpm();
-        label = new JLabel(wpm + " wpm");
-        gb.anchor = GridBagConstraints.FIRST_LINE_END;
-        panel.add(label, gb);
-
+        PlayerRow row = rows.get(entry.getKey());
+        if (row == null) {
+          row = new PlayerRow(entry.getKey());
+          row.addTo(panel, gb);
+          rows.put(entry.getKey(), row);
+          layoutChanged = true;
+        }
         int value = entry.getValue().getWordProgress() + 1;
-        String fullText = player.getCurrentGameState().getTextToType().getFullText();
-        int totalWord = fullText.split(" ").length;
+        row.update(entry.getValue().getWpm(), value * 100 / totalWord);
+      }
+      if (layoutChanged) {
+        panel.revalidate();
+        panel.repaint();
+      }
+    }
+  }
+
+  /** The name, wpm and progress bar of one player. */
+  static class PlayerRow {
+    JLabel name;
+    JLabel wpm = new JLabel();
+    JProgressBar bar = new JProgressBar();
+    int shownWpm = -1;
+    int shownPercentage = -1;
+
+    PlayerRow(String playername) {
+      name = new JLabel(playername);
+      bar.setPreferredSize(new Dimension(1000, 30));
+      bar.setStringPainted(true);
+    }
+
+    void addTo(JPanel panel, GridBagConstraints gb) {
+      gb.anchor = GridBagConstraints.FIRST_LINE_START;
+      panel.add(name, gb);
+      gb.anchor = GridBagConstraints.FIRST_LINE_END;
+      panel.add(wpm, gb);
+      panel.add(bar, gb);
+    }
+
+    void removeFrom(JPanel panel) {
+      panel.remove(name);
+      panel.remove(wpm);
+      panel.remove(bar);
+    }
 
-        int percentage = (value * 100 / totalWord);
+    /** Changes the shown values, components whose value stays the same are not touched. */
+    void update(int newWpm, int percentage) {
+      if (newWpm != shownWpm) {
+        wpm.setText(newWpm + " wpm");
+        shownWpm = newWpm;
+      }
+      if (percentage != shownPercentage) {
         bar.setValue(percentage);
-        bar.setStringPainted(true);
-        panel.add(bar, gb);
-        storeBar.put(key, bar);
-        key++;
+        shownPercentage = percentage;
       }
     }
   }
@@ -170,7 +291,7 @@ public class GameScreen extends JPanel {
   /** provides Text Box to display text that needs to be typed. */
   class Type implements PropertyChangeListener {
 
-    JLabel textToType = new JLabel("here appears the text that needs to be typed.");
+    PassageView textToType = new PassageView();
 
     Type(MultiplayerTypeRacerClient game) {
       gbc.weighty = 1;
@@ -179,13 +300,11 @@ public class GameScreen extends JPanel {
       gbc.gridheight = 1;
       gbc.fill = GridBagConstraints.BOTH;
       gbc.gridwidth = GridBagConstraints.REMAINDER;
-      textToType.setOpaque(true);
-      textToType.setBackground(Color.LIGHT_GRAY);
-      Border border = BorderFactory.createLineBorder(Color.BLACK);
-      textToType.setBorder(border);
-      add(textToType, gbc);
+      add(textToType.getComponent(), gbc);
+      // The text of a game never changes, only the progress is updated later on
+      textToType.setText(game.getCurrentGameState().getTextToType());
       adjustTo(game);
-      game.addPropertyChangeListener(this);
+      parts.add(this);
     }
 
     @Override
@@ -196,25 +315,10 @@ public class GameScreen extends JPanel {
     }
 
     private void adjustTo(final MultiplayerTypeRacerClient game) {
-      String text = game.getCurrentGameState().getTextToType().getFullText();
-      String[] words = text.split("\\s+");
-      int arrayLength = words.length;
-      int count =
-          game.getCurrentGameState().getPlayerStateMap().get(game.getMyName()).getWordProgress()
-              + 1;
-      String[] subset = Arrays.copyOfRange(words, count, arrayLength);
-      String subsetToString = String.join(" ", subset);
-      String[] correctWords = Arrays.copyOfRange(words, 0, count);
-      String correctWordsString = String.join(" ", correctWords);
-      textToType.setText("<html><p style=\"width:700px\">" + text + "</p></html>");
-
-      textToType.setText(
-          "<html><p style=\"width:700px\"><font color = green>"
-              + correctWordsString
-              + " "
-              + "</font><font color = black>"
-              + subsetToString
-              + "</p></font></html>");
+      PlayerState me = game.getCurrentGameState().getPlayerStateMap().get(game.getMyName());
+      if (me != null) {
+        textToType.setFinishedWords(me.getWordProgress() + 1);
+      }
     }
   }
 
@@ -224,9 +328,20 @@ public class GameScreen extends JPanel {
    */
   class TypeText implements PropertyChangeListener {
 
-    String userInput;
+    private final Controller controller;
+    private final MultiplayerTypeRacerClient multiplayer;
+    private final WordMatcher matcher;
+    // Every keystroke reads the input into the same segment instead of a new string
+    private final Segment input = new Segment();
+    private final SimpleAttributeSet correctStyle = new SimpleAttributeSet();
+    private final SimpleAttributeSet wrongStyle = new SimpleAttributeSet();
 
     TypeText(Controller controller, MultiplayerTypeRacerClient multiplayer) {
+      this.controller = controller;
+      this.multiplayer = multiplayer;
+      matcher = multiplayer.getWordMatcher();
+      StyleConstants.setForeground(correctStyle, Color.BLACK);
+      StyleConstants.setForeground(wrongStyle, Color.RED);
       gbc.weighty = 0;
       gbc.gridheight = 2;
       gbc.fill = GridBagConstraints.BOTH;
@@ -241,39 +356,90 @@ public class GameScreen extends JPanel {
           new FocusListener() {
             @Override
             public void focusGained(FocusEvent focusEvent) {
-              text.setForeground(Color.BLACK);
               text.setText("");
             }
 
             @Override
             public void focusLost(FocusEvent focusEvent) {
-              text.setForeground(Color.BLACK);
               requestFocus();
             }
           });
-      adjustTo(multiplayer);
+      addAncestorListener(
+          new AncestorListener() {
+            @Override
+            public void ancestorAdded(AncestorEvent ancestorEvent) {
+              text.requestFocus();
+            }
+
+            @Override
+            public void ancestorRemoved(AncestorEvent ancestorEvent) {}
+
+            @Override
+            public void ancestorMoved(AncestorEvent ancestorEvent) {}
+          });
       adjustEnable(multiplayer);
-      multiplayer.addPropertyChangeListener(this);
-      initControl(controller, multiplayer);
+      parts.add(this);
+      initControl();
     }
 
-    /** key bindings for the space bar enables check if typed word is correct. */
-    public void initControl(Controller controller, MultiplayerTypeRacerClient multiplayer) {
+    /**
+     * checks every change of the input right away. A word is cleared as soon as it is typed, the
+     * space bar is not needed between words and ignored.
+     */
+    public void initControl() {
       InputMap im = text.getInputMap();
       ActionMap am = text.getActionMap();
       im.put(KeyStroke.getKeyStroke("SPACE"), "space");
-
       am.put(
           "space",
           new AbstractAction() {
             @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-              userInput = text.getText();
-              controller.checkType(multiplayer, userInput);
+            public void actionPerformed(ActionEvent actionEvent) {}
+          });
+
+      ((AbstractDocument) text.getStyledDocument()).setDocumentFilter(
+          new DocumentFilter() {
+            @Override
+            public void insertString(FilterBypass fb, int offset, String string,
+                AttributeSet attr) throws BadLocationException {
+              fb.insertString(offset, string, attr);
+              checkInput(fb, offset);
+            }
+
+            @Override
+            public void replace(FilterBypass fb, int offset, int length, String string,
+                AttributeSet attrs) throws BadLocationException {
+              fb.replace(offset, length, string, attrs);
+              checkInput(fb, offset);
+            }
+
+            @Override
+            public void remove(FilterBypass fb, int offset, int length)
+                throws BadLocationException {
+              fb.remove(offset, length);
+              checkInput(fb, offset);
             }
           });
     }
 
+    private void checkInput(DocumentFilter.FilterBypass fb, int changedFrom)
+        throws BadLocationException {
+      StyledDocument document = (StyledDocument) fb.getDocument();
+      document.getText(0, document.getLength(), input);
+      if (matcher.update(input, changedFrom)) {
+        boolean mistyped = matcher.isMistyped();
+        matcher.nextWord();
+        // The next word is typed into the empty field
+        fb.remove(0, document.getLength());
+        controller.wordTyped(multiplayer, mistyped);
+        return;
+      }
+      // The chars after the correct start of the word are shown in red
+      int correct = matcher.getCorrectLength();
+      document.setCharacterAttributes(0, correct, correctStyle, true);
+      document.setCharacterAttributes(correct, document.getLength() - correct, wrongStyle, true);
+    }
+
     @Override
     public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
       if (propertyChangeEvent.getPropertyName().equals("GameState")) {
@@ -283,36 +449,14 @@ public class GameScreen extends JPanel {
       }
     }
 
-    private void adjustTo(final MultiplayerTypeRacerClient player) {
-
-      boolean checkInput = player.isTypedCorrect();
-      text.setForeground(Color.BLACK);
-
-      if (checkInput) {
-        text.setText(" ");
-
-        addAncestorListener(
-            new AncestorListener() {
-              @Override
-              public void ancestorAdded(AncestorEvent ancestorEvent) {
-                text.requestFocus();
-              }
-
-              @Override
-              public void ancestorRemoved(AncestorEvent ancestorEvent) {}
-
-              @Override
-              public void ancestorMoved(AncestorEvent ancestorEvent) {}
-            });
-      } else {
-        text.setText(player.getUserInput());
-        text.setForeground(Color.RED);
-      }
-    }
-
     private void adjustEnable(MultiplayerTypeRacerClient player) {
       boolean isEnable = (player.getCountdown() == 0);
-      text.setEnabled(isEnable);
+      if (isEnable && !text.isEnabled()) {
+        text.setEnabled(true);
+        text.requestFocus();
+      } else {
+        text.setEnabled(isEnable);
+      }
     }
   }
 
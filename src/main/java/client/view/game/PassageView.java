@@ -0,0 +1,180 @@
+package client.view.game;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import server.model.TextToType;
+
+/**
+ * Shows the text to type, the words the player finished in green. Progress only restyles the words
+ * finished since the last update, found by their offsets, so an update costs the same however
+ * long the text is.
+ *
+ * <p>Long texts, like whole chapters, are not put into the document at once. The document holds a
+ * window of words around the current one, which moves on as the player advances. The document of
+ * the next window is prepared in a background thread meanwhile, so laying out and painting only
+ * ever deal with one window.
+ */
+class PassageView {
+  // Windows start every STEP_WORDS words and hold twice as many, plus some finished words
+  private static final int STEP_WORDS = 200;
+  private static final int CONTEXT_WORDS = 10;
+  private static final SimpleAttributeSet FINISHED_STYLE = new SimpleAttributeSet();
+  private static final SimpleAttributeSet OPEN_STYLE = new SimpleAttributeSet();
+  private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "passage-prefetch");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    StyleConstants.setForeground(FINISHED_STYLE, new Color(0, 128, 0));
+    StyleConstants.setForeground(OPEN_STYLE, Color.BLACK);
+  }
+
+  private final JTextPane pane = new JTextPane();
+  private final JScrollPane scrollPane;
+  private TextToType text;
+  private Window window;
+  private CompletableFuture<Window> nextWindow;
+  private int finishedWords;
+
+  /** A part of the text in its own document. */
+  private static final class Window {
+    private final int index;
+    private final int firstWord;
+    // Start of every word of the window in the document, the last entry is the end of the window
+    private final int[] wordStarts;
+    private final StyledDocument document;
+
+    private Window(TextToType text, int index) {
+      this.index = index;
+      firstWord = Math.max(0, index * STEP_WORDS - CONTEXT_WORDS);
+      int lastWord = Math.min(text.textLength(), (index + 2) * STEP_WORDS);
+      wordStarts = new int[lastWord - firstWord + 1];
+      StringBuilder content = new StringBuilder();
+      for (int i = firstWord; i < lastWord; i++) {
+        wordStarts[i - firstWord] = content.length();
+        content.append(text.getWord(i));
+        if (i < text.textLength() - 1) {
+          content.append(' ');
+        }
+      }
+      wordStarts[lastWord - firstWord] = content.length();
+
+      // Not shown yet, so the document may be filled in any thread
+      document = new DefaultStyledDocument();
+      try {
+        document.insertString(0, content.toString(), OPEN_STYLE);
+      } catch (BadLocationException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    private int getLastWord() {
+      return firstWord + wordStarts.length - 1;
+    }
+
+    /** Returns the offset of the given word, clamped to the window. */
+    private int offsetOf(int word) {
+      int clamped = Math.max(firstWord, Math.min(word, getLastWord()));
+      return wordStarts[clamped - firstWord];
+    }
+  }
+
+  PassageView() {
+    pane.setEditable(false);
+    pane.setFocusable(false);
+    pane.setBackground(Color.LIGHT_GRAY);
+    scrollPane = new JScrollPane(pane, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+        ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+    scrollPane.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+    scrollPane.setPreferredSize(new Dimension(700, 150));
+  }
+
+  JComponent getComponent() {
+    return scrollPane;
+  }
+
+  /**
+   * Shows a new text, no word finished yet.
+   *
+   * @param text the text to type
+   */
+  void setText(TextToType text) {
+    this.text = text;
+    nextWindow = null;
+    show(new Window(text, 0));
+    finishedWords = 0;
+  }
+
+  /**
+   * Shows the given number of words as finished. Only the words between the previous and the new
+   * number are restyled, unless the window moves on.
+   *
+   * @param count the number of finished words
+   */
+  void setFinishedWords(int count) {
+    count = Math.max(0, Math.min(count, text.textLength()));
+    if (count == finishedWords) {
+      return;
+    }
+    int index = count / STEP_WORDS;
+    if (index != window.index) {
+      show(takeWindow(index));
+      // The new document has no finished words yet
+      finishedWords = window.firstWord;
+    }
+    int from = window.offsetOf(Math.min(count, finishedWords));
+    int to = window.offsetOf(Math.max(count, finishedWords));
+    AttributeSet style = count > finishedWords ? FINISHED_STYLE : OPEN_STYLE;
+    window.document.setCharacterAttributes(from, to - from, style, true);
+    finishedWords = count;
+    scrollTo(window.offsetOf(count));
+  }
+
+  private Window takeWindow(int index) {
+    CompletableFuture<Window> prefetched = nextWindow;
+    nextWindow = null;
+    if (prefetched != null && prefetched.isDone() && prefetched.join().index == index) {
+      return prefetched.join();
+    }
+    // Not prepared in time or the player jumped ahead, a window is quickly built anyway
+    return new Window(text, index);
+  }
+
+  private void show(Window shown) {
+    window = shown;
+    pane.setDocument(shown.document);
+    int next = shown.index + 1;
+    if (next * STEP_WORDS - CONTEXT_WORDS < text.textLength()) {
+      TextToType current = text;
+      nextWindow = CompletableFuture.supplyAsync(() -> new Window(current, next), PREFETCH);
+    }
+  }
+
+  private void scrollTo(int offset) {
+    try {
+      Rectangle2D bounds = pane.modelToView2D(offset);
+      if (bounds != null) {
+        pane.scrollRectToVisible(bounds.getBounds());
+      }
+    } catch (BadLocationException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package communication;
+
+import communication.messages.FinishedWordRequest;
+import communication.messages.HeartbeatNotification;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.UpdateCountdownNotification;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes messages to the binary wire protocol. A frame is the varint encoded length of the
+ * payload followed by the payload. The first payload byte is the frame type. The frequent
+ * messages have their own compact types with varint encoded fields, every other message is sent
+ * as a JSON frame holding the same JSON as in the text protocol.
+ */
+public final class BinaryCodec {
+  /** Upper bound for the payload of a frame, larger frames are treated as broken connection. */
+  public static final int MAX_FRAME_SIZE = 1024 * 1024;
+
+  private static final byte JSON_FRAME = 0;
+  private static final byte FINISHED_WORD_REQUEST = 1;
+  private static final byte PLAYER_FINISHED_WORD = 2;
+  private static final byte UPDATE_COUNTDOWN_NOTIFICATION = 3;
+  private static final byte HEARTBEAT_NOTIFICATION = 4;
+  private static final byte PROGRESS_UPDATE_NOTIFICATION = 5;
+
+  private BinaryCodec() {}
+
+  /**
+   * Tells whether the given message has its own compact frame type.
+   *
+   * @param message The message
+   * @return {@code false} if the message is sent as JSON frame
+   */
+  public static boolean hasCompactForm(Object message) {
+    return message instanceof FinishedWordRequest
+        || message instanceof PlayerFinishedWord
+        || message instanceof UpdateCountdownNotification
+        || message instanceof HeartbeatNotification
+        || message instanceof ProgressUpdateNotification;
+  }
+
+  /**
+   * Encodes a message that has a compact form to a complete frame.
+   *
+   * @param message The message
+   * @return The frame, including the length prefix
+   * @throws IllegalArgumentException If the message has no compact form
+   */
+  public static byte[] encodeFrame(Object message) {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream(32);
+    if (message instanceof FinishedWordRequest) {
+      payload.write(FINISHED_WORD_REQUEST);
+      writeSignedVarint(payload, ((FinishedWordRequest) message).getNewWpmEntry());
+    } else if (message instanceof PlayerFinishedWord) {
+      PlayerFinishedWord progress = (PlayerFinishedWord) message;
+      payload.write(PLAYER_FINISHED_WORD);
+      writeString(payload, progress.getPlayerName());
+      writeSignedVarint(payload, progress.getWordProgress());
+      writeSignedVarint(payload, progress.getWpm());
+    } else if (message instanceof UpdateCountdownNotification) {
+      payload.write(UPDATE_COUNTDOWN_NOTIFICATION);
+      writeSignedVarint(payload, ((UpdateCountdownNotification) message).getCountdown());
+    } else if (message instanceof HeartbeatNotification) {
+      payload.write(HEARTBEAT_NOTIFICATION);
+    } else if (message instanceof ProgressUpdateNotification) {
+      ProgressUpdateNotification update = (ProgressUpdateNotification) message;
+      payload.write(PROGRESS_UPDATE_NOTIFICATION);
+      writeVarint(payload, update.getPlayerCount());
+      for (int i = 0; i < update.getPlayerCount(); i++) {
+        writeString(payload, update.getPlayerName(i));
+        writeSignedVarint(payload, update.getWordProgress(i));
+        writeSignedVarint(payload, update.getWpm(i));
+      }
+    } else {
+      throw new IllegalArgumentException("No compact form for " + message.getClass());
+    }
+    return frame(payload.toByteArray());
+  }
+
+  /**
+   * Wraps the given JSON in a complete frame.
+   *
+   * @param json The JSON of a message in UTF-8
+   * @param length The number of bytes of the JSON, from the start of the array
+   * @return The frame, including the length prefix
+   */
+  public static byte[] encodeJsonFrame(byte[] json, int length) {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream(length + 6);
+    writeVarint(frame, length + 1);
+    frame.write(JSON_FRAME);
+    frame.write(json, 0, length);
+    return frame.toByteArray();
+  }
+
+  private static byte[] frame(byte[] payload) {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 5);
+    writeVarint(frame, payload.length);
+    frame.write(payload, 0, payload.length);
+    return frame.toByteArray();
+  }
+
+  /**
+   * Decodes the payload of a frame, i.e. the bytes after the length prefix.
+   *
+   * @param payload The payload, read from its position to its limit
+   * @return The message or {@code null} if it is a JSON message of unknown type
+   * @throws IOException If the payload is malformed
+   */
+  public static Object decodePayload(ByteBuffer payload) throws IOException {
+    try {
+      byte type = payload.get();
+      switch (type) {
+        case JSON_FRAME:
+          byte[] text = new byte[payload.remaining()];
+          payload.get(text);
+          return MessageCodec.decode(new String(text, StandardCharsets.UTF_8));
+        case FINISHED_WORD_REQUEST:
+          return new FinishedWordRequest((int) readSignedVarint(payload));
+        case PLAYER_FINISHED_WORD:
+          String playerName = readString(payload);
+          int wordProgress = (int) readSignedVarint(payload);
+          int wpm = (int) readSignedVarint(payload);
+          return new PlayerFinishedWord(playerName, wordProgress, wpm);
+        case UPDATE_COUNTDOWN_NOTIFICATION:
+          return new UpdateCountdownNotification(readSignedVarint(payload));
+        case HEARTBEAT_NOTIFICATION:
+          return new HeartbeatNotification();
+        case PROGRESS_UPDATE_NOTIFICATION:
+          return readProgressUpdate(payload);
+        default:
+          throw new IOException("Unknown frame type " + type);
+      }
+    } catch (RuntimeException e) {
+      // Includes BufferUnderflowException of truncated payloads
+      throw new IOException("Malformed frame", e);
+    }
+  }
+
+  private static ProgressUpdateNotification readProgressUpdate(ByteBuffer payload)
+      throws IOException {
+    long count = readVarint(payload);
+    // Every player takes at least three bytes
+    if (count > payload.remaining() / 3) {
+      throw new IOException("Malformed player count");
+    }
+    String[] playerNames = new String[(int) count];
+    int[] wordProgress = new int[(int) count];
+    int[] wpm = new int[(int) count];
+    for (int i = 0; i < count; i++) {
+      playerNames[i] = readString(payload);
+      wordProgress[i] = (int) readSignedVarint(payload);
+      wpm[i] = (int) readSignedVarint(payload);
+    }
+    return new ProgressUpdateNotification(playerNames, wordProgress, wpm);
+  }
+
+  /**
+   * Reads a complete frame from the given stream and decodes it.
+   *
+   * @param input The stream
+   * @return The message or {@code null} if it is a JSON message of unknown type
+   * @throws IOException If the stream ends or the frame is malformed
+   */
+  public static Object readFrame(InputStream input) throws IOException {
+    long length = 0;
+    for (int shift = 0; ; shift += 7) {
+      int next = input.read();
+      if (next < 0 || shift > 28) {
+        throw new IOException("Connection closed or malformed frame length");
+      }
+      length |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        break;
+      }
+    }
+    if (length < 1 || length > MAX_FRAME_SIZE) {
+      throw new IOException("Invalid frame length " + length);
+    }
+    byte[] payload = input.readNBytes((int) length);
+    if (payload.length < length) {
+      throw new IOException("Connection closed");
+    }
+    return decodePayload(ByteBuffer.wrap(payload));
+  }
+
+  /**
+   * Reads the length prefix of a frame starting at the position of the given buffer, without
+   * moving the position.
+   *
+   * @param buffer The buffer
+   * @return The total length of the frame including the prefix or -1 if the prefix is incomplete
+   * @throws IOException If the length is invalid
+   */
+  public static int peekFrameLength(ByteBuffer buffer) throws IOException {
+    long length = 0;
+    int index = buffer.position();
+    for (int shift = 0; index < buffer.limit(); shift += 7) {
+      if (shift > 28) {
+        throw new IOException("Malformed frame length");
+      }
+      int next = buffer.get(index++);
+      length |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+          throw new IOException("Invalid frame length " + length);
+        }
+        return (int) length + index - buffer.position();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves the position of the given buffer behind the length prefix of a frame.
+   *
+   * @param buffer The buffer, positioned at a complete length prefix
+   */
+  public static void skipFrameLength(ByteBuffer buffer) {
+    while ((buffer.get() & 0x80) != 0) {
+      // Continuation byte
+    }
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static void writeSignedVarint(ByteArrayOutputStream out, long value) {
+    // Zig-zag encoding keeps small negative values like the countdown's -1 short
+    writeVarint(out, (value << 1) ^ (value >> 63));
+  }
+
+  private static long readVarint(ByteBuffer in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte next = in.get();
+      value |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static long readSignedVarint(ByteBuffer in) throws IOException {
+    long value = readVarint(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String value) {
+    // The length is shifted by one, 0 stands for null like a missing field in JSON
+    if (value == null) {
+      writeVarint(out, 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length + 1L);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static String readString(ByteBuffer in) throws IOException {
+    long length = readVarint(in) - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > in.remaining()) {
+      throw new IOException("Malformed string");
+    }
+    byte[] bytes = new byte[(int) length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
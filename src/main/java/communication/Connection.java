@@ -1,21 +1,32 @@
 package communication;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketException;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Contains a socket and streams on it. The class serves as a container for 'interfaces' to an
  * established connection.
+ *
+ * <p>Messages are newline delimited JSON until {@link #setBinaryReading(boolean)} or
+ * {@link #setBinaryWriting(boolean)} switch the respective direction to {@link BinaryCodec}
+ * frames. Both formats are read from the same buffered stream, so a switch does not lose bytes.
  */
 public class Connection implements Closeable {
+  private static final int MAX_LINE_LENGTH = BinaryCodec.MAX_FRAME_SIZE;
+
   private final Socket socket;
-  private final BufferedReader reader;
-  private final OutputStreamWriter writer;
+  private final InputStream input;
+  private final OutputStream output;
+  private volatile boolean binaryReading;
+  private volatile boolean binaryWriting;
 
   /**
    * Creates a new Connection object holding the given socket and streams and use UTF8 to
@@ -25,36 +36,117 @@ public class Connection implements Closeable {
    */
   public Connection(Socket socket) throws IOException {
     this.socket = socket;
-    writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
-    reader =
-        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    output = new BufferedOutputStream(socket.getOutputStream());
+    input = new BufferedInputStream(socket.getInputStream());
+  }
+
+  /**
+   * Switches reading between JSON lines and binary frames. Must be called by the reading thread
+   * between two reads.
+   *
+   * @param binaryReading {@code true} to read binary frames
+   */
+  public void setBinaryReading(boolean binaryReading) {
+    this.binaryReading = binaryReading;
   }
 
   /**
-   * Reads JSON from the socket stream.
+   * Switches writing between JSON lines and binary frames. Must be called by the writing thread
+   * between two writes.
    *
-   * @return JSON
-   * @throws IOException If there are connection errors
+   * @param binaryWriting {@code true} to write binary frames
    */
-  public String readJson() throws IOException {
-    String content = reader.readLine();
-    if (content == null) {
-      throw new IOException();
+  public void setBinaryWriting(boolean binaryWriting) {
+    this.binaryWriting = binaryWriting;
+  }
+
+  /**
+   * Sets the timeout of blocking reads.
+   *
+   * @param millis The timeout in milliseconds, 0 for none
+   * @throws SocketException If the socket is broken
+   */
+  public void setReadTimeout(int millis) throws SocketException {
+    socket.setSoTimeout(millis);
+  }
+
+  /**
+   * Reads the next message from the socket stream, whatever the current format is.
+   *
+   * @return The message or {@code null} if its type is unknown
+   * @throws IOException If there are connection errors or the message is malformed
+   */
+  public Object readMessage() throws IOException {
+    if (binaryReading) {
+      return BinaryCodec.readFrame(input);
+    }
+    try {
+      return MessageCodec.decode(readJson());
+    } catch (RuntimeException e) {
+      throw new IOException("Malformed message", e);
     }
-    return content;
+  }
 
+  private String readJson() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int next;
+    while ((next = input.read()) != '\n') {
+      if (next < 0) {
+        throw new IOException();
+      }
+      if (line.size() >= MAX_LINE_LENGTH) {
+        throw new IOException("Message too long");
+      }
+      line.write(next);
+    }
+    byte[] bytes = line.toByteArray();
+    int length = bytes.length;
+    if (length > 0 && bytes[length - 1] == '\r') {
+      length--;
+    }
+    return new String(bytes, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write an already encoded message to the socket stream in the current format.
+   *
+   * @param message The message to write
+   * @throws IOException If there are connection errors.
+   */
+  public void write(EncodedMessage message) throws IOException {
+    message.writeTo(output, binaryWriting);
+    output.flush();
+  }
+
+  /**
+   * Writes an already encoded message to the buffer of the socket stream in the given format. The
+   * message is sent with the next {@link #flush()}, so many messages can be sent at once.
+   *
+   * @param message The message to write
+   * @param binary {@code true} for a binary frame, {@code false} for a JSON line
+   * @throws IOException If there are connection errors.
+   */
+  public void append(EncodedMessage message, boolean binary) throws IOException {
+    message.writeTo(output, binary);
+  }
 
+  /**
+   * Sends all messages appended so far.
+   *
+   * @throws IOException If there are connection errors.
+   */
+  public void flush() throws IOException {
+    output.flush();
   }
 
   /**
-   * Write JSON to the socket stream.
+   * Encodes and writes a message to the socket stream in the current format.
    *
-   * @param json The JSON to write
+   * @param message The message to write, an instance of a class in {@link communication.messages}
    * @throws IOException If there are connection errors.
    */
-  public void writeJson(String json) throws IOException {
-    writer.write(json + "\n");
-    writer.flush();
+  public void writeMessage(Object message) throws IOException {
+    write(EncodedMessage.of(message));
   }
 
   @Override
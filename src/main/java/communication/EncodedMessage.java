@@ -0,0 +1,92 @@
+package communication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A message that has already been encoded to the bytes sent over the wire. Instances are
+ * immutable, so one instance can be handed to many connections at once, whichever protocol they
+ * speak.
+ *
+ * <p>Messages without a compact binary form are serialized to JSON right away, the binary frame
+ * then only wraps that JSON. Messages with a compact form are encoded lazily for the protocols
+ * actually used by the recipients.
+ */
+public final class EncodedMessage {
+  private final Object message;
+  private volatile byte[] line;
+  private volatile byte[] frame;
+
+  private EncodedMessage(Object message, byte[] line) {
+    this.message = message;
+    this.line = line;
+  }
+
+  /**
+   * Encodes the given message.
+   *
+   * @param message The message, an instance of a class in {@link communication.messages}
+   * @return The encoded message
+   * @throws IllegalArgumentException If the message class is unknown
+   */
+  public static EncodedMessage of(Object message) {
+    if (BinaryCodec.hasCompactForm(message)) {
+      return new EncodedMessage(message, null);
+    }
+    return new EncodedMessage(message, MessageCodec.encodeLine(message));
+  }
+
+  public Object getMessage() {
+    return message;
+  }
+
+  private byte[] line() {
+    byte[] encoded = line;
+    if (encoded == null) {
+      // Racing threads compute equal arrays, any of them may be kept
+      encoded = MessageCodec.encodeLine(message);
+      line = encoded;
+    }
+    return encoded;
+  }
+
+  private byte[] frame() {
+    byte[] encoded = frame;
+    if (encoded == null) {
+      if (BinaryCodec.hasCompactForm(message)) {
+        encoded = BinaryCodec.encodeFrame(message);
+      } else {
+        byte[] json = line();
+        // The frame holds the JSON without the newline
+        encoded = BinaryCodec.encodeJsonFrame(json, json.length - 1);
+      }
+      frame = encoded;
+    }
+    return encoded;
+  }
+
+  /**
+   * Returns a new read-only buffer on the encoded message. Every caller gets its own position,
+   * the bytes are shared.
+   *
+   * @param binary {@code true} for a binary frame, {@code false} for a JSON line including the
+   *     terminating newline
+   * @return The buffer
+   */
+  public ByteBuffer newBuffer(boolean binary) {
+    return ByteBuffer.wrap(binary ? frame() : line()).asReadOnlyBuffer();
+  }
+
+  /**
+   * Writes the encoded message to the given stream.
+   *
+   * @param output The stream
+   * @param binary {@code true} for a binary frame, {@code false} for a JSON line including the
+   *     terminating newline
+   * @throws IOException If writing fails
+   */
+  public void writeTo(OutputStream output, boolean binary) throws IOException {
+    output.write(binary ? frame() : line());
+  }
+}
@@ -0,0 +1,87 @@
+package communication;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Hand-written streaming adapter for one message class. It always writes {@code messageType} as
+ * the first field and can continue reading an object whose {@code messageType} has already been
+ * consumed, so a message is decoded in a single pass.
+ *
+ * @param <T> Type of the message
+ */
+abstract class MessageAdapter<T> extends TypeAdapter<T> {
+  private final String messageType;
+  private final Class<T> type;
+
+  MessageAdapter(String messageType, Class<T> type) {
+    this.messageType = messageType;
+    this.type = type;
+  }
+
+  String getMessageType() {
+    return messageType;
+  }
+
+  Class<T> getType() {
+    return type;
+  }
+
+  @Override
+  public final void write(JsonWriter out, T message) throws IOException {
+    out.beginObject();
+    out.name("messageType").value(messageType);
+    writeFields(out, message);
+    out.endObject();
+  }
+
+  @Override
+  public final T read(JsonReader in) throws IOException {
+    in.beginObject();
+    T message = readFields(in);
+    in.endObject();
+    return message;
+  }
+
+  /**
+   * Writes all fields except {@code messageType}.
+   *
+   * @param out The writer, positioned inside the object
+   * @param message The message
+   * @throws IOException If writing fails
+   */
+  abstract void writeFields(JsonWriter out, T message) throws IOException;
+
+  /**
+   * Reads the remaining fields of the object. Unknown fields, including {@code messageType}, are
+   * skipped.
+   *
+   * @param in The reader, positioned inside the object
+   * @return The message
+   * @throws IOException If reading fails
+   */
+  abstract T readFields(JsonReader in) throws IOException;
+
+  /**
+   * Writes a string field, omitting it if it is {@code null} like Gson does by default.
+   */
+  static void writeString(JsonWriter out, String name, String value) throws IOException {
+    if (value != null) {
+      out.name(name).value(value);
+    }
+  }
+
+  /**
+   * Reads a string value that may be {@code null}.
+   */
+  static String readString(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+}
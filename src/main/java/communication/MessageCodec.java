@@ -0,0 +1,661 @@
+package communication;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import communication.messages.FinishedWordRequest;
+import communication.messages.GameDoesNotExistResponse;
+import communication.messages.GameFinishedNotification;
+import communication.messages.HeartbeatNotification;
+import communication.messages.JoinGameRequest;
+import communication.messages.JoinGameResponse;
+import communication.messages.NewGameRequest;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.PlayerJoinedNotification;
+import communication.messages.PlayerLeftNotification;
+import communication.messages.PlayerNameAlreadyExistsResponse;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.ProtocolHandshake;
+import communication.messages.StartGameRequest;
+import communication.messages.TextRequest;
+import communication.messages.TextResponse;
+import communication.messages.UpdateCountdownNotification;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import server.model.GameState;
+import server.model.PlayerState;
+import server.model.TextToType;
+
+/**
+ * Encodes and decodes all messages in {@link communication.messages} without reflection. The JSON
+ * is the same Gson produces for the message classes, so peers using plain Gson understand it.
+ *
+ * <p>All methods are thread-safe. Encoding reuses a buffer per thread.
+ */
+public final class MessageCodec {
+  private static final Map<String, MessageAdapter<?>> ADAPTERS_BY_TYPE = new HashMap<>();
+  private static final Map<Class<?>, MessageAdapter<?>> ADAPTERS_BY_CLASS = new HashMap<>();
+  private static final ThreadLocal<LineBuffer> BUFFERS = ThreadLocal.withInitial(LineBuffer::new);
+
+  /** Collects the bytes of a message, its writer encodes the JSON to UTF-8 as it is written. */
+  private static final class LineBuffer extends ByteArrayOutputStream {
+    private final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+  }
+
+  static {
+    add(new MessageAdapter<>(NewGameRequest.MESSAGE_TYPE, NewGameRequest.class) {
+      @Override
+      void writeFields(JsonWriter out, NewGameRequest message) throws IOException {
+        writeString(out, "playerName", message.getPlayerName());
+        writeString(out, "length", message.getLength());
+        writeString(out, "difficulty", message.getDifficulty());
+      }
+
+      @Override
+      NewGameRequest readFields(JsonReader in) throws IOException {
+        String playerName = null;
+        String length = null;
+        String difficulty = null;
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "playerName":
+              playerName = readString(in);
+              break;
+            case "length":
+              length = readString(in);
+              break;
+            case "difficulty":
+              difficulty = readString(in);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        return new NewGameRequest(playerName, length, difficulty);
+      }
+    });
+    add(new MessageAdapter<>(JoinGameRequest.MESSAGE_TYPE, JoinGameRequest.class) {
+      @Override
+      void writeFields(JsonWriter out, JoinGameRequest message) throws IOException {
+        out.name("gameId").value(message.getGameId());
+        writeString(out, "playerName", message.getPlayerName());
+      }
+
+      @Override
+      JoinGameRequest readFields(JsonReader in) throws IOException {
+        int gameId = 0;
+        String playerName = null;
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "gameId":
+              gameId = in.nextInt();
+              break;
+            case "playerName":
+              playerName = readString(in);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        return new JoinGameRequest(gameId, playerName);
+      }
+    });
+    add(new MessageAdapter<>(JoinGameResponse.MESSAGE_TYPE, JoinGameResponse.class) {
+      @Override
+      void writeFields(JsonWriter out, JoinGameResponse message) throws IOException {
+        out.name("gameId").value(message.getGameId());
+        writeString(out, "playerName", message.getPlayerName());
+        if (message.getCurrentGameState() != null) {
+          out.name("currentGameState");
+          writeGameState(out, message.getCurrentGameState());
+        }
+        out.name("textId").value(message.getTextId());
+        writeString(out, "textHash", message.getTextHash());
+      }
+
+      @Override
+      JoinGameResponse readFields(JsonReader in) throws IOException {
+        int gameId = 0;
+        String playerName = null;
+        GameState gameState = null;
+        int textId = -1;
+        String textHash = null;
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "gameId":
+              gameId = in.nextInt();
+              break;
+            case "playerName":
+              playerName = readString(in);
+              break;
+            case "currentGameState":
+              gameState = readGameState(in);
+              break;
+            case "textId":
+              textId = in.nextInt();
+              break;
+            case "textHash":
+              textHash = readString(in);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        return new JoinGameResponse(gameId, playerName, gameState, textId, textHash);
+      }
+    });
+    add(new MessageAdapter<>(GameDoesNotExistResponse.MESSAGE_TYPE,
+        GameDoesNotExistResponse.class) {
+      @Override
+      void writeFields(JsonWriter out, GameDoesNotExistResponse message) {
+        // No fields
+      }
+
+      @Override
+      GameDoesNotExistResponse readFields(JsonReader in) throws IOException {
+        skipFields(in);
+        return new GameDoesNotExistResponse();
+      }
+    });
+    add(new MessageAdapter<>(PlayerNameAlreadyExistsResponse.MESSAGE_TYPE,
+        PlayerNameAlreadyExistsResponse.class) {
+      @Override
+      void writeFields(JsonWriter out, PlayerNameAlreadyExistsResponse message) {
+        // No fields
+      }
+
+      @Override
+      PlayerNameAlreadyExistsResponse readFields(JsonReader in) throws IOException {
+        skipFields(in);
+        return new PlayerNameAlreadyExistsResponse();
+      }
+    });
+    add(new MessageAdapter<>(StartGameRequest.MESSAGE_TYPE, StartGameRequest.class) {
+      @Override
+      void writeFields(JsonWriter out, StartGameRequest message) {
+        // No fields
+      }
+
+      @Override
+      StartGameRequest readFields(JsonReader in) throws IOException {
+        skipFields(in);
+        return new StartGameRequest();
+      }
+    });
+    add(new MessageAdapter<>(FinishedWordRequest.MESSAGE_TYPE, FinishedWordRequest.class) {
+      @Override
+      void writeFields(JsonWriter out, FinishedWordRequest message) throws IOException {
+        out.name("newWpmEntry").value(message.getNewWpmEntry());
+      }
+
+      @Override
+      FinishedWordRequest readFields(JsonReader in) throws IOException {
+        int newWpmEntry = 0;
+        while (in.hasNext()) {
+          if (in.nextName().equals("newWpmEntry")) {
+            newWpmEntry = in.nextInt();
+          } else {
+            in.skipValue();
+          }
+        }
+        return new FinishedWordRequest(newWpmEntry);
+      }
+    });
+    add(new MessageAdapter<>(UpdateCountdownNotification.MESSAGE_TYPE,
+        UpdateCountdownNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, UpdateCountdownNotification message) throws IOException {
+        out.name("countdown").value(message.getCountdown());
+      }
+
+      @Override
+      UpdateCountdownNotification readFields(JsonReader in) throws IOException {
+        long countdown = 0;
+        while (in.hasNext()) {
+          if (in.nextName().equals("countdown")) {
+            countdown = in.nextLong();
+          } else {
+            in.skipValue();
+          }
+        }
+        return new UpdateCountdownNotification(countdown);
+      }
+    });
+    add(new MessageAdapter<>(PlayerJoinedNotification.MESSAGE_TYPE,
+        PlayerJoinedNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, PlayerJoinedNotification message) throws IOException {
+        writeString(out, "playerName", message.getPlayerName());
+      }
+
+      @Override
+      PlayerJoinedNotification readFields(JsonReader in) throws IOException {
+        return new PlayerJoinedNotification(readPlayerName(in));
+      }
+    });
+    add(new MessageAdapter<>(PlayerLeftNotification.MESSAGE_TYPE, PlayerLeftNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, PlayerLeftNotification message) throws IOException {
+        writeString(out, "playerName", message.getPlayerName());
+      }
+
+      @Override
+      PlayerLeftNotification readFields(JsonReader in) throws IOException {
+        return new PlayerLeftNotification(readPlayerName(in));
+      }
+    });
+    add(new MessageAdapter<>(PlayerFinishedWord.MESSAGE_TYPE, PlayerFinishedWord.class) {
+      @Override
+      void writeFields(JsonWriter out, PlayerFinishedWord message) throws IOException {
+        writeProgress(out, message.getPlayerName(), message.getWordProgress(), message.getWpm());
+      }
+
+      @Override
+      PlayerFinishedWord readFields(JsonReader in) throws IOException {
+        Progress progress = readProgress(in);
+        return new PlayerFinishedWord(progress.playerName, progress.wordProgress, progress.wpm);
+      }
+    });
+    add(new MessageAdapter<>(GameFinishedNotification.MESSAGE_TYPE,
+        GameFinishedNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, GameFinishedNotification message) throws IOException {
+        writeProgress(out, message.getPlayerName(), message.getWordProgress(), message.getWpm());
+      }
+
+      @Override
+      GameFinishedNotification readFields(JsonReader in) throws IOException {
+        Progress progress = readProgress(in);
+        return new GameFinishedNotification(progress.playerName, progress.wordProgress,
+            progress.wpm);
+      }
+    });
+    add(new MessageAdapter<>(HeartbeatNotification.MESSAGE_TYPE, HeartbeatNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, HeartbeatNotification message) {
+        // No fields
+      }
+
+      @Override
+      HeartbeatNotification readFields(JsonReader in) throws IOException {
+        skipFields(in);
+        return new HeartbeatNotification();
+      }
+    });
+    add(new MessageAdapter<>(ProtocolHandshake.MESSAGE_TYPE, ProtocolHandshake.class) {
+      @Override
+      void writeFields(JsonWriter out, ProtocolHandshake message) throws IOException {
+        out.name("binary").value(message.isBinary());
+      }
+
+      @Override
+      ProtocolHandshake readFields(JsonReader in) throws IOException {
+        boolean binary = false;
+        while (in.hasNext()) {
+          if (in.nextName().equals("binary")) {
+            binary = in.nextBoolean();
+          } else {
+            in.skipValue();
+          }
+        }
+        return new ProtocolHandshake(binary);
+      }
+    });
+    add(new MessageAdapter<>(ProgressUpdateNotification.MESSAGE_TYPE,
+        ProgressUpdateNotification.class) {
+      @Override
+      void writeFields(JsonWriter out, ProgressUpdateNotification message) throws IOException {
+        int count = message.getPlayerCount();
+        out.name("playerNames").beginArray();
+        for (int i = 0; i < count; i++) {
+          out.value(message.getPlayerName(i));
+        }
+        out.endArray();
+        out.name("wordProgress").beginArray();
+        for (int i = 0; i < count; i++) {
+          out.value(message.getWordProgress(i));
+        }
+        out.endArray();
+        out.name("wpm").beginArray();
+        for (int i = 0; i < count; i++) {
+          out.value(message.getWpm(i));
+        }
+        out.endArray();
+      }
+
+      @Override
+      ProgressUpdateNotification readFields(JsonReader in) throws IOException {
+        List<String> playerNames = new ArrayList<>();
+        int[] wordProgress = new int[0];
+        int[] wpm = new int[0];
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "playerNames":
+              in.beginArray();
+              while (in.hasNext()) {
+                playerNames.add(readString(in));
+              }
+              in.endArray();
+              break;
+            case "wordProgress":
+              wordProgress = readIntArray(in);
+              break;
+            case "wpm":
+              wpm = readIntArray(in);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        if (wordProgress.length != playerNames.size() || wpm.length != playerNames.size()) {
+          throw new IOException("Progress arrays differ in length");
+        }
+        return new ProgressUpdateNotification(playerNames.toArray(new String[0]), wordProgress,
+            wpm);
+      }
+    });
+    add(new MessageAdapter<>(TextRequest.MESSAGE_TYPE, TextRequest.class) {
+      @Override
+      void writeFields(JsonWriter out, TextRequest message) {
+        // No fields
+      }
+
+      @Override
+      TextRequest readFields(JsonReader in) throws IOException {
+        skipFields(in);
+        return new TextRequest();
+      }
+    });
+    add(new MessageAdapter<>(TextResponse.MESSAGE_TYPE, TextResponse.class) {
+      @Override
+      void writeFields(JsonWriter out, TextResponse message) throws IOException {
+        out.name("textId").value(message.getTextId());
+        writeString(out, "fullText", message.getFullText());
+      }
+
+      @Override
+      TextResponse readFields(JsonReader in) throws IOException {
+        int textId = -1;
+        String fullText = null;
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "textId":
+              textId = in.nextInt();
+              break;
+            case "fullText":
+              fullText = readString(in);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        return new TextResponse(textId, fullText);
+      }
+    });
+  }
+
+  private MessageCodec() {}
+
+  private static void add(MessageAdapter<?> adapter) {
+    ADAPTERS_BY_TYPE.put(adapter.getMessageType(), adapter);
+    ADAPTERS_BY_CLASS.put(adapter.getType(), adapter);
+  }
+
+  /**
+   * Encodes the given message to a line of JSON. The JSON is written as UTF-8 right away, there is
+   * no string in between.
+   *
+   * @param message The message, an instance of a class in {@link communication.messages}
+   * @return The JSON in UTF-8, including the terminating newline
+   * @throws IllegalArgumentException If the message class is unknown
+   */
+  public static byte[] encodeLine(Object message) {
+    @SuppressWarnings("unchecked")
+    MessageAdapter<Object> adapter =
+        (MessageAdapter<Object>) ADAPTERS_BY_CLASS.get(message.getClass());
+    if (adapter == null) {
+      throw new IllegalArgumentException("Unknown message " + message.getClass());
+    }
+
+    LineBuffer buffer = BUFFERS.get();
+    buffer.reset();
+    try {
+      adapter.write(new JsonWriter(buffer.writer), message);
+      buffer.writer.write('\n');
+      buffer.writer.flush();
+    } catch (IOException e) {
+      // Writing to memory does not fail
+      throw new AssertionError(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Encodes the given message for both wire protocols.
+   *
+   * @param message The message, an instance of a class in {@link communication.messages}
+   * @return The encoded message
+   * @throws IllegalArgumentException If the message class is unknown
+   */
+  public static EncodedMessage encodeMessage(Object message) {
+    return EncodedMessage.of(message);
+  }
+
+  /**
+   * Decodes the given JSON to the message class of its {@code messageType}. The type is expected
+   * as the first field, then the message is decoded in the same pass. Otherwise the JSON is parsed
+   * to a tree first.
+   *
+   * @param json The JSON
+   * @return The message or {@code null} if the message type is missing or unknown
+   * @throws JsonSyntaxException If the JSON is malformed
+   */
+  public static Object decode(String json) {
+    try (JsonReader in = new JsonReader(new StringReader(json))) {
+      in.beginObject();
+      if (in.hasNext() && in.nextName().equals("messageType")
+          && in.peek() == JsonToken.STRING) {
+        MessageAdapter<?> adapter = ADAPTERS_BY_TYPE.get(in.nextString());
+        if (adapter == null) {
+          return null;
+        }
+        Object message = adapter.readFields(in);
+        in.endObject();
+        return message;
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+    return decodeTree(json);
+  }
+
+  private static Object decodeTree(String json) {
+    JsonElement element = JsonParser.parseString(json);
+    if (!element.isJsonObject()) {
+      throw new JsonSyntaxException("Message is no JSON object");
+    }
+    JsonElement type = ((JsonObject) element).get("messageType");
+    if (!(type instanceof JsonPrimitive) || !((JsonPrimitive) type).isString()) {
+      return null;
+    }
+    MessageAdapter<?> adapter = ADAPTERS_BY_TYPE.get(type.getAsString());
+    if (adapter == null) {
+      return null;
+    }
+    return adapter.fromJsonTree(element);
+  }
+
+  private static void skipFields(JsonReader in) throws IOException {
+    while (in.hasNext()) {
+      in.nextName();
+      in.skipValue();
+    }
+  }
+
+  private static String readPlayerName(JsonReader in) throws IOException {
+    String playerName = null;
+    while (in.hasNext()) {
+      if (in.nextName().equals("playerName")) {
+        playerName = MessageAdapter.readString(in);
+      } else {
+        in.skipValue();
+      }
+    }
+    return playerName;
+  }
+
+  private static void writeProgress(JsonWriter out, String playerName, int wordProgress, int wpm)
+      throws IOException {
+    MessageAdapter.writeString(out, "playerName", playerName);
+    out.name("wordProgress").value(wordProgress);
+    out.name("wpm").value(wpm);
+  }
+
+  private static Progress readProgress(JsonReader in) throws IOException {
+    Progress progress = new Progress();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "playerName":
+          progress.playerName = MessageAdapter.readString(in);
+          break;
+        case "wordProgress":
+          progress.wordProgress = in.nextInt();
+          break;
+        case "wpm":
+          progress.wpm = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    return progress;
+  }
+
+  private static int[] readIntArray(JsonReader in) throws IOException {
+    int[] values = new int[8];
+    int count = 0;
+    in.beginArray();
+    while (in.hasNext()) {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, 2 * count);
+      }
+      values[count++] = in.nextInt();
+    }
+    in.endArray();
+    return Arrays.copyOf(values, count);
+  }
+
+  /** Fields shared by the progress messages while reading them. */
+  private static class Progress {
+    private String playerName;
+    private int wordProgress;
+    private int wpm;
+  }
+
+  private static void writeGameState(JsonWriter out, GameState state) throws IOException {
+    out.beginObject();
+    out.name("playerStateMap").beginObject();
+    for (Map.Entry<String, PlayerState> player : state.getPlayerStateMap().entrySet()) {
+      out.name(player.getKey()).beginObject();
+      out.name("wpm").value(player.getValue().getWpm());
+      out.name("wordProgress").value(player.getValue().getWordProgress());
+      out.endObject();
+    }
+    out.endObject();
+    if (state.getTextToType() != null) {
+      out.name("textToType");
+      writeTextToType(out, state.getTextToType());
+    }
+    out.name("countdownInSeconds").value(state.getCountdownInSeconds());
+    out.endObject();
+  }
+
+  private static GameState readGameState(JsonReader in) throws IOException {
+    Map<String, PlayerState> players = new HashMap<>();
+    TextToType textToType = null;
+    int countdownInSeconds = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "playerStateMap":
+          in.beginObject();
+          while (in.hasNext()) {
+            String playerName = in.nextName();
+            players.put(playerName, readPlayerState(in));
+          }
+          in.endObject();
+          break;
+        case "textToType":
+          textToType = readTextToType(in);
+          break;
+        case "countdownInSeconds":
+          countdownInSeconds = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new GameState(players, textToType, countdownInSeconds);
+  }
+
+  private static PlayerState readPlayerState(JsonReader in) throws IOException {
+    int wpm = 0;
+    int wordProgress = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "wpm":
+          wpm = in.nextInt();
+          break;
+        case "wordProgress":
+          wordProgress = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new PlayerState(wordProgress, wpm);
+  }
+
+  private static void writeTextToType(JsonWriter out, TextToType text) throws IOException {
+    out.beginObject();
+    out.name("fullText").value(text.getFullText());
+    out.name("words").beginArray();
+    for (int i = 0; i < text.textLength(); i++) {
+      out.value(text.getWord(i));
+    }
+    out.endArray();
+    out.endObject();
+  }
+
+  private static TextToType readTextToType(JsonReader in) throws IOException {
+    String fullText = "";
+    in.beginObject();
+    while (in.hasNext()) {
+      if (in.nextName().equals("fullText")) {
+        fullText = in.nextString();
+      } else {
+        // The words are derived from the full text again
+        in.skipValue();
+      }
+    }
+    in.endObject();
+    return new TextToType(fullText);
+  }
+}
@@ -0,0 +1,78 @@
+package communication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes received messages to the handler registered for their class. The message is decoded
+ * once when it is read, by {@link MessageCodec}, which finds the class by the {@code messageType}
+ * field, or by {@link BinaryCodec}.
+ *
+ * <p>Registries are filled once and only read afterwards, so one instance can be shared by all
+ * connections. Per-connection state is passed to the handlers as context.
+ *
+ * @param <C> Type of the context passed to the handlers
+ */
+public class MessageRegistry<C> {
+  private final Map<Class<?>, Entry<C, ?>> entries;
+
+  public MessageRegistry() {
+    entries = new HashMap<>();
+  }
+
+  /**
+   * Handles one type of message.
+   *
+   * @param <C> Type of the context
+   * @param <T> Type of the message
+   */
+  public interface Handler<C, T> {
+    void handle(C context, T message);
+  }
+
+  private static class Entry<C, T> {
+    private final Class<T> type;
+    private final Handler<C, ? super T> handler;
+
+    Entry(Class<T> type, Handler<C, ? super T> handler) {
+      this.type = type;
+      this.handler = handler;
+    }
+
+    void handle(C context, Object message) {
+      handler.handle(context, type.cast(message));
+    }
+  }
+
+  /**
+   * Registers the handler for a message class.
+   *
+   * @param type Class of the message, must be known to {@link MessageCodec}
+   * @param handler Handler for decoded messages
+   * @param <T> Type of the message
+   * @return This registry
+   */
+  public <T> MessageRegistry<C> register(Class<T> type, Handler<C, ? super T> handler) {
+    entries.put(type, new Entry<>(type, handler));
+    return this;
+  }
+
+  /**
+   * Passes an already decoded message to the handler registered for its type.
+   *
+   * @param context Context passed to the handler
+   * @param message The received message, {@code null} for a message of unknown type
+   * @return {@code false} if no handler is registered for the message type
+   */
+  public boolean dispatch(C context, Object message) {
+    if (message == null) {
+      return false;
+    }
+    Entry<C, ?> entry = entries.get(message.getClass());
+    if (entry == null) {
+      return false;
+    }
+    entry.handle(context, message);
+    return true;
+  }
+}
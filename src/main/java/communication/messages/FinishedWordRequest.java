@@ -4,10 +4,11 @@ package communication.messages;
  * Message to be sent to the server if a client finished a word.
  */
 public class FinishedWordRequest {
+  public static final String MESSAGE_TYPE = "FinishedWordRequest";
 
+  private final String messageType = MESSAGE_TYPE;
 
   private final int newWpmEntry;
-  private final String messageType = "FinishedWordRequest";
 
   public FinishedWordRequest(int newWpmEntry) {
     this.newWpmEntry = newWpmEntry;
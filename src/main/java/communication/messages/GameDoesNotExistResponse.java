@@ -5,7 +5,9 @@ package communication.messages;
  * game id.
  */
 public class GameDoesNotExistResponse {
-  private final String messageType = "GameDoesNotExistsResponse";
+  public static final String MESSAGE_TYPE = "GameDoesNotExistsResponse";
+
+  private final String messageType = MESSAGE_TYPE;
 
   public String getMessageType() {
     return messageType;
@@ -1,20 +1,41 @@
 package communication.messages;
 
-import server.model.GameState;
-
 /**
- * Message send to client if the game is over.
+ * Message send to client if the game is over. It carries the final progress of the player who
+ * finished the text.
  */
 public class GameFinishedNotification {
-  private final GameState finishedGameState;
-  private final String messageType = "GameFinishedNotification";
+  public static final String MESSAGE_TYPE = "GameFinishedNotification";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  private final String playerName;
+  private final int wordProgress;
+  private final int wpm;
+
+  /**
+   * Creates a GameFinishedNotification object.
+   *
+   * @param playerName Name of the player who finished the text
+   * @param wordProgress The final word progress of the player
+   * @param wpm The final wpm of the player
+   */
+  public GameFinishedNotification(String playerName, int wordProgress, int wpm) {
+    this.playerName = playerName;
+    this.wordProgress = wordProgress;
+    this.wpm = wpm;
+  }
+
+  public String getPlayerName() {
+    return playerName;
+  }
 
-  public GameFinishedNotification(GameState finishedGameState) {
-    this.finishedGameState = finishedGameState;
+  public int getWordProgress() {
+    return wordProgress;
   }
 
-  public GameState getFinishedGameState() {
-    return finishedGameState;
+  public int getWpm() {
+    return wpm;
   }
 
   public String getMessageType() {
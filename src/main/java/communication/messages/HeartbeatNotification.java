@@ -0,0 +1,15 @@
+package communication.messages;
+
+/**
+ * Message sent to the clients periodically, so broken connections are noticed while nobody types.
+ * It carries no data and needs no handling.
+ */
+public class HeartbeatNotification {
+  public static final String MESSAGE_TYPE = "HeartbeatNotification";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  public String getMessageType() {
+    return messageType;
+  }
+}
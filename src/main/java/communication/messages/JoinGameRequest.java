@@ -5,10 +5,12 @@ package communication.messages;
  * with the given player name.
  */
 public class JoinGameRequest {
+  public static final String MESSAGE_TYPE = "JoinGameRequest";
+
+  private final String messageType = MESSAGE_TYPE;
 
   private final int gameId;
   private final String playerName;
-  private final String messageType = "JoinGameRequest";
 
   public JoinGameRequest(int gameId, String playerName) {
     this.gameId = gameId;
@@ -29,4 +31,3 @@ public class JoinGameRequest {
 
 }
 
-
@@ -2,28 +2,51 @@ package communication.messages;
 
 import server.model.GameState;
 
-
 /**
  * Message to be sent to the client as a response to {@link JoinGameRequest} and
  * {@link NewGameRequest}.
+ *
+ * <p>If the response has a text hash, the game state usually comes without its text. The client
+ * takes the text from its cache or asks for it with a {@link TextRequest}.
  */
 public class JoinGameResponse {
+  public static final String MESSAGE_TYPE = "JoinGameResponse";
+
+  private final String messageType = MESSAGE_TYPE;
+
   private final int gameId;
   private final String playerName;
   private final GameState currentGameState;
-  private final String messageType = "JoinGameResponse";
+  private final int textId;
+  private final String textHash;
 
   /**
-   * Creates a JoinGameResponse object.
+   * Creates a JoinGameResponse object including the text.
    *
    * @param gameId The game id.
    * @param playerName Name of the player who wants to join.
    * @param currentGameState The current game state.
    */
   public JoinGameResponse(int gameId, String playerName, GameState currentGameState) {
+    this(gameId, playerName, currentGameState, -1, null);
+  }
+
+  /**
+   * Creates a JoinGameResponse object that refers to the text by its hash.
+   *
+   * @param gameId The game id.
+   * @param playerName Name of the player who wants to join.
+   * @param currentGameState The current game state, usually without its text.
+   * @param textId The id of the text on the server, -1 if unknown.
+   * @param textHash The hash of the text.
+   */
+  public JoinGameResponse(int gameId, String playerName, GameState currentGameState, int textId,
+      String textHash) {
     this.gameId = gameId;
     this.playerName = playerName;
     this.currentGameState = currentGameState;
+    this.textId = textId;
+    this.textHash = textHash;
   }
 
   public int getGameId() {
@@ -38,6 +61,14 @@ public class JoinGameResponse {
     return currentGameState;
   }
 
+  public int getTextId() {
+    return textId;
+  }
+
+  public String getTextHash() {
+    return textHash;
+  }
+
   public String getMessageType() {
     return messageType;
   }
@@ -2,20 +2,47 @@ package communication.messages;
 
 /**
  * Message to be sent to the server if a client request to create a new game and join it with the
- * given name.
+ * given name. The client may ask for a text of a length ("short", "medium", "long") and difficulty
+ * ("easy", "normal", "hard"), {@code null} stands for any.
  */
 public class NewGameRequest {
+  public static final String MESSAGE_TYPE = "NewGameRequest";
+
+  private final String messageType = MESSAGE_TYPE;
+
   private final String playerName;
-  private final String messageType = "NewGameRequest";
+  private final String length;
+  private final String difficulty;
 
   public NewGameRequest(String playerName) {
+    this(playerName, null, null);
+  }
+
+  /**
+   * Creates a request for a text of the given kind.
+   *
+   * @param playerName the name of the player.
+   * @param length the length of the text or {@code null} for any.
+   * @param difficulty the difficulty of the text or {@code null} for any.
+   */
+  public NewGameRequest(String playerName, String length, String difficulty) {
     this.playerName = playerName;
+    this.length = length;
+    this.difficulty = difficulty;
   }
 
   public String getPlayerName() {
     return playerName;
   }
 
+  public String getLength() {
+    return length;
+  }
+
+  public String getDifficulty() {
+    return difficulty;
+  }
+
   public String getMessageType() {
     return messageType;
   }
@@ -1,29 +1,41 @@
 package communication.messages;
 
-import server.model.GameState;
-
 /**
- * Message to be sent to the clients to notify them that some player finished a word.
+ * Message to be sent to the clients to notify them that some player finished a word. It only
+ * carries the new progress of that player, the clients apply it to their local game state.
  */
 public class PlayerFinishedWord {
+  public static final String MESSAGE_TYPE = "PlayerFinishedWord";
 
-  private final GameState gameStateAfterFinishedWord;
-  private final String messageType = "PlayerFinishedWord";
+  private final String messageType = MESSAGE_TYPE;
 
+  private final String playerName;
+  private final int wordProgress;
+  private final int wpm;
 
   /**
    * Creates a PlayerFinsihedWordNotification object.
    *
-   * @param gameStateAfterFinishedWord Game state after typing the word
+   * @param playerName Name of the player who finished a word
+   * @param wordProgress The new word progress of the player
+   * @param wpm The new wpm of the player
    */
-  public PlayerFinishedWord(GameState gameStateAfterFinishedWord) {
+  public PlayerFinishedWord(String playerName, int wordProgress, int wpm) {
+    this.playerName = playerName;
+    this.wordProgress = wordProgress;
+    this.wpm = wpm;
+  }
 
-    this.gameStateAfterFinishedWord = gameStateAfterFinishedWord;
+  public String getPlayerName() {
+    return playerName;
   }
 
+  public int getWordProgress() {
+    return wordProgress;
+  }
 
-  public GameState getGameStateAfterFinishedWord() {
-    return gameStateAfterFinishedWord;
+  public int getWpm() {
+    return wpm;
   }
 
   public String getMessageType() {
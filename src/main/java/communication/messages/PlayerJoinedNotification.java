@@ -1,21 +1,21 @@
 package communication.messages;
 
-import server.model.GameState;
-
 /**
  * Message to be sent to the clients if some player joined the game.
  */
 public class PlayerJoinedNotification {
+  public static final String MESSAGE_TYPE = "PlayerJoinedNotification";
+
+  private final String messageType = MESSAGE_TYPE;
 
-  private final String messageType = "PlayerJoinedNotification";
-  private final GameState gameState;
+  private final String playerName;
 
-  public PlayerJoinedNotification(GameState gameState) {
-    this.gameState = gameState;
+  public PlayerJoinedNotification(String playerName) {
+    this.playerName = playerName;
   }
 
-  public GameState getCurrentGameState() {
-    return gameState;
+  public String getPlayerName() {
+    return playerName;
   }
 
   public String getMessageType() {
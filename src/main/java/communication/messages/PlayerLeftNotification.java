@@ -1,27 +1,26 @@
 package communication.messages;
 
-import server.model.GameState;
-
 /**
  * Message to be sent to the clients if some player left the game.
  */
 public class PlayerLeftNotification {
+  public static final String MESSAGE_TYPE = "PlayerLeftNotification";
 
+  private final String messageType = MESSAGE_TYPE;
 
-  private final GameState currentGameState;
-  private final String messageType = "PlayerLeftNotification";
+  private final String playerName;
 
   /**
    * Creates a PlayerLeftNotification object.
    *
-   * @param currentGameState Current gamestate.
+   * @param playerName Name of the player who left.
    */
-  public PlayerLeftNotification(GameState currentGameState) {
-    this.currentGameState = currentGameState;
+  public PlayerLeftNotification(String playerName) {
+    this.playerName = playerName;
   }
 
-  public GameState getCurrentGameState() {
-    return currentGameState;
+  public String getPlayerName() {
+    return playerName;
   }
 
   public String getMessageType() {
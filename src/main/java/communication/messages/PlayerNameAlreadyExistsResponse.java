@@ -5,9 +5,9 @@ package communication.messages;
  * {@link NewGameRequest} if the player name already exists in the game.
  */
 public class PlayerNameAlreadyExistsResponse {
+  public static final String MESSAGE_TYPE = "PlayerNameAlreadyExistsResponse";
 
-  private final String messageType = "PlayerNameAlreadyExistsResponse";
-
+  private final String messageType = MESSAGE_TYPE;
 
   public String getMessageType() {
     return messageType;
@@ -0,0 +1,78 @@
+package communication.messages;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Message to be sent to the clients with the progress of all players who finished words since the
+ * last update. The server sends it instead of {@link PlayerFinishedWord} if progress is batched.
+ * The arrays hold one entry per player, at the same index.
+ */
+public class ProgressUpdateNotification {
+  public static final String MESSAGE_TYPE = "ProgressUpdateNotification";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  private final String[] playerNames;
+  private final int[] wordProgress;
+  private final int[] wpm;
+
+  /**
+   * Creates a ProgressUpdateNotification object. The arrays must have the same length and must not
+   * be changed afterwards.
+   *
+   * @param playerNames The names of the players.
+   * @param wordProgress The index of the last word each player finished.
+   * @param wpm The words per minute of each player.
+   */
+  public ProgressUpdateNotification(String[] playerNames, int[] wordProgress, int[] wpm) {
+    this.playerNames = playerNames;
+    this.wordProgress = wordProgress;
+    this.wpm = wpm;
+  }
+
+  public int getPlayerCount() {
+    return playerNames.length;
+  }
+
+  public String getPlayerName(int index) {
+    return playerNames[index];
+  }
+
+  public int getWordProgress(int index) {
+    return wordProgress[index];
+  }
+
+  public int getWpm(int index) {
+    return wpm[index];
+  }
+
+  /**
+   * Combines this update with a newer one. The newer progress replaces the progress of the same
+   * player, the progress of other players is kept.
+   *
+   * @param newer The newer update.
+   * @return The update holding the progress of both.
+   */
+  public ProgressUpdateNotification mergedWith(ProgressUpdateNotification newer) {
+    int count = newer.getPlayerCount();
+    String[] mergedNames = Arrays.copyOf(newer.playerNames, count + getPlayerCount());
+    int[] mergedProgress = Arrays.copyOf(newer.wordProgress, mergedNames.length);
+    int[] mergedWpm = Arrays.copyOf(newer.wpm, mergedNames.length);
+    List<String> newerNames = Arrays.asList(newer.playerNames);
+    for (int i = 0; i < getPlayerCount(); i++) {
+      if (!newerNames.contains(playerNames[i])) {
+        mergedNames[count] = playerNames[i];
+        mergedProgress[count] = wordProgress[i];
+        mergedWpm[count] = wpm[i];
+        count++;
+      }
+    }
+    return new ProgressUpdateNotification(Arrays.copyOf(mergedNames, count),
+        Arrays.copyOf(mergedProgress, count), Arrays.copyOf(mergedWpm, count));
+  }
+
+  public String getMessageType() {
+    return messageType;
+  }
+}
@@ -0,0 +1,26 @@
+package communication.messages;
+
+/**
+ * Message optionally sent by the client before any other message to ask for the binary wire
+ * protocol. The server answers with the same message telling whether binary frames are used from
+ * then on. Without a handshake both sides keep sending JSON lines.
+ */
+public class ProtocolHandshake {
+  public static final String MESSAGE_TYPE = "ProtocolHandshake";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  private final boolean binary;
+
+  public ProtocolHandshake(boolean binary) {
+    this.binary = binary;
+  }
+
+  public boolean isBinary() {
+    return binary;
+  }
+
+  public String getMessageType() {
+    return messageType;
+  }
+}
@@ -4,7 +4,9 @@ package communication.messages;
  * Message send to server if player want to start a new game.
  */
 public class StartGameRequest {
-  private final String messageType = "StartGameRequest";
+  public static final String MESSAGE_TYPE = "StartGameRequest";
+
+  private final String messageType = MESSAGE_TYPE;
 
   public String getMessageType() {
     return messageType;
@@ -0,0 +1,15 @@
+package communication.messages;
+
+/**
+ * Message to be sent to the server if the text of the joined game is not in the client's cache.
+ */
+public class TextRequest {
+  public static final String MESSAGE_TYPE = "TextRequest";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  public String getMessageType() {
+    return messageType;
+  }
+
+}
@@ -0,0 +1,36 @@
+package communication.messages;
+
+/**
+ * Message to be sent to the client as a response to {@link TextRequest}.
+ */
+public class TextResponse {
+  public static final String MESSAGE_TYPE = "TextResponse";
+
+  private final String messageType = MESSAGE_TYPE;
+
+  private final int textId;
+  private final String fullText;
+
+  /**
+   * Creates a TextResponse object.
+   *
+   * @param textId The id of the text on the server, -1 if unknown.
+   * @param fullText The text.
+   */
+  public TextResponse(int textId, String fullText) {
+    this.textId = textId;
+    this.fullText = fullText;
+  }
+
+  public int getTextId() {
+    return textId;
+  }
+
+  public String getFullText() {
+    return fullText;
+  }
+
+  public String getMessageType() {
+    return messageType;
+  }
+}
@@ -4,7 +4,10 @@ package communication.messages;
  * Message send to client with the updated countdown.
  */
 public class UpdateCountdownNotification {
-  private final String messageType = "UpdateCountdownNotification";
+  public static final String MESSAGE_TYPE = "UpdateCountdownNotification";
+
+  private final String messageType = MESSAGE_TYPE;
+
   private final long countdown;
 
   public UpdateCountdownNotification(long countdown) {
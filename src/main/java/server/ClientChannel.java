@@ -0,0 +1,72 @@
+package server;
+
+import communication.EncodedMessage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Transport independent view on the connection to one client. The game logic in
+ * {@link GamesManager} and {@link PlayerConnection} only talks to clients through this interface,
+ * so it does not need to know whether the server runs on blocking sockets or on NIO selectors.
+ */
+interface ClientChannel extends Closeable {
+
+  /**
+   * Receives the messages read from a {@link ClientChannel}.
+   */
+  interface Listener {
+
+    /**
+     * Called for every message received from the client. Messages of one channel are delivered
+     * one after another, never concurrently.
+     *
+     * @param message The decoded message or {@code null} if its type is unknown
+     */
+    void onMessage(Object message);
+
+    /**
+     * Called once if the connection broke while reading or writing.
+     */
+    void onDisconnect();
+  }
+
+  /**
+   * Sets the listener for incoming messages. The first call starts reading from the client, later
+   * calls replace the listener for all following messages.
+   *
+   * @param listener The listener
+   */
+  void setListener(Listener listener);
+
+  /**
+   * Sends the given message to the client without blocking the caller. Messages are written in the
+   * order they were passed to this method. The same message may be passed to many channels.
+   *
+   * @param message The message to send
+   */
+  void send(EncodedMessage message);
+
+  /**
+   * Sends the given reply to the client, then switches both directions to binary frames. The
+   * reply itself is still sent in the current format. Must be called from
+   * {@link Listener#onMessage(Object)} before messages are sent from other threads.
+   *
+   * @param reply The last message to send in the current format
+   */
+  void switchToBinary(EncodedMessage reply);
+
+  /**
+   * Sends the given message to the client and closes the channel once it is written.
+   *
+   * @param message The message to send
+   */
+  void sendAndClose(EncodedMessage message);
+
+  /**
+   * Closes the channel immediately. The listener is not notified.
+   *
+   * @throws IOException If closing the underlying connection fails
+   */
+  @Override
+  void close() throws IOException;
+}
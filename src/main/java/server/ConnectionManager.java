@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Handles incomming socket connections.
@@ -12,17 +11,20 @@ import java.util.concurrent.Executors;
 class ConnectionManager {
   private final ServerSocket serverSocket;
   private final GamesManager gamesManager;
+  private final ServerExecutors executors;
   private final ExecutorService executorService;
 
-  ConnectionManager(ServerSocket serverSocket, GamesManager gamesManager) {
+  ConnectionManager(ServerSocket serverSocket, GamesManager gamesManager,
+      ServerExecutors executors) {
     this.serverSocket = serverSocket;
     this.gamesManager = gamesManager;
-    executorService = Executors.newFixedThreadPool(5);
+    this.executors = executors;
+    executorService = executors.newConnectionPool();
   }
 
   /**
    * Start awaiting new connections. A new connection will be handled in a new thread. Handling a
-   * connection means passing it to {@link GamesManager}.
+   * connection means passing it to {@link GamesManager} as a {@link SocketClientChannel}.
    */
   void start() {
     try {
@@ -39,7 +41,8 @@ class ConnectionManager {
       System.out.println("new connection");
       executorService.execute(() -> {
         try {
-          gamesManager.handleNewPlayerConnection(connectionSocket);
+          ClientChannel channel = new SocketClientChannel(connectionSocket, executors);
+          gamesManager.handleNewPlayerConnection(channel);
         } catch (IOException e) {
           // Ignore - the client disconnected before it could properly connect
         }
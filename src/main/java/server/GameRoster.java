@@ -0,0 +1,98 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The players connected to one game. Changes are only made from the thread of the game, the
+ * recipient array may be read from any thread.
+ */
+class GameRoster {
+  private static final PlayerConnection[] NO_PLAYERS = new PlayerConnection[0];
+
+  private final Map<String, PlayerConnection> playersByName;
+  // Rebuilt on every join and leave, so broadcasts do not have to copy anything
+  private volatile PlayerConnection[] recipients;
+  // Players who finished words since the last progress update, if progress is batched
+  private final Set<PlayerConnection> progressed;
+  private boolean progressUpdatePending;
+
+  GameRoster() {
+    progressed = new LinkedHashSet<>();
+    playersByName = new LinkedHashMap<>();
+    recipients = NO_PLAYERS;
+  }
+
+  /**
+   * Checks whether a player of the given name is connected to the game.
+   *
+   * @param playerName The name of the player
+   * @return {@code true} if the name is taken
+   */
+  boolean contains(String playerName) {
+    return playersByName.containsKey(playerName);
+  }
+
+  /**
+   * Adds a player to the game.
+   *
+   * @param player The connection to the player
+   */
+  void add(PlayerConnection player) {
+    playersByName.put(player.getPlayerName(), player);
+    recipients = playersByName.values().toArray(NO_PLAYERS);
+  }
+
+  /**
+   * Removes a player from the game. Nothing happens if the player is not in the game.
+   *
+   * @param player The connection to the player
+   */
+  void remove(PlayerConnection player) {
+    if (playersByName.remove(player.getPlayerName(), player)) {
+      recipients = playersByName.values().toArray(NO_PLAYERS);
+      progressed.remove(player);
+    }
+  }
+
+  /**
+   * Remembers that a player finished a word, to be sent with the next progress update.
+   *
+   * @param player The connection to the player
+   * @return {@code true} if no update was pending, then the caller has to schedule one
+   */
+  boolean markProgressed(PlayerConnection player) {
+    progressed.add(player);
+    if (progressUpdatePending) {
+      return false;
+    }
+    progressUpdatePending = true;
+    return true;
+  }
+
+  /**
+   * Returns the players who finished words since the last call and forgets them.
+   *
+   * @return The players, possibly none
+   */
+  PlayerConnection[] takeProgressed() {
+    progressUpdatePending = false;
+    if (progressed.isEmpty()) {
+      return NO_PLAYERS;
+    }
+    PlayerConnection[] players = progressed.toArray(NO_PLAYERS);
+    progressed.clear();
+    return players;
+  }
+
+  /**
+   * Returns all players of the game. The array must not be modified.
+   *
+   * @return The players in the order they joined
+   */
+  PlayerConnection[] getRecipients() {
+    return recipients;
+  }
+}
@@ -0,0 +1,44 @@
+package server;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A fixed set of serial executors the games are spread over. A game always runs on the same
+ * shard, so its tasks keep their order, while the number of threads does not depend on the number
+ * of games.
+ */
+class GameShards {
+  private final ExecutorService[] shards;
+
+  /**
+   * Creates the shards.
+   *
+   * @param count The number of shards
+   * @param executors Creates the serial executor of every shard
+   */
+  GameShards(int count, ServerExecutors executors) {
+    shards = new ExecutorService[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = executors.newSerialExecutor();
+    }
+  }
+
+  /**
+   * Returns the executor running all tasks of the given game.
+   *
+   * @param gameId The id of the game
+   * @return The executor
+   */
+  ExecutorService forGame(int gameId) {
+    return shards[Math.floorMod(gameId, shards.length)];
+  }
+
+  /**
+   * Stops all shards.
+   */
+  void shutdown() {
+    for (ExecutorService shard : shards) {
+      shard.shutdownNow();
+    }
+  }
+}
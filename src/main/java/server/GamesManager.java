@@ -1,22 +1,37 @@
 package server;
 
-import com.google.gson.Gson;
-import communication.Connection;
+import communication.EncodedMessage;
+import communication.MessageCodec;
+import communication.MessageRegistry;
 import communication.messages.GameDoesNotExistResponse;
+import communication.messages.GameFinishedNotification;
+import communication.messages.HeartbeatNotification;
 import communication.messages.JoinGameRequest;
 import communication.messages.JoinGameResponse;
 import communication.messages.NewGameRequest;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.PlayerJoinedNotification;
+import communication.messages.PlayerLeftNotification;
 import communication.messages.PlayerNameAlreadyExistsResponse;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.ProtocolHandshake;
+import communication.messages.TextResponse;
+import communication.messages.UpdateCountdownNotification;
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.Socket;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import server.model.Difficulty;
+import server.model.GamePhase;
 import server.model.MultiplayerTypeRacerServer;
+import server.model.PassageLength;
+import server.model.TextCorpus;
+import server.model.TextSelector;
+import server.model.TextToType;
 
 
 /**
@@ -24,14 +39,43 @@ import server.model.MultiplayerTypeRacerServer;
  * communication between players (i.e. 'view') and the respective game.
  */
 class GamesManager implements Closeable {
+  private static final long HEARTBEAT_INTERVAL_SECONDS = 15;
+  private static final long JOIN_TIMEOUT_SECONDS = 30;
+  private static final long REAPER_INTERVAL_SECONDS = 30;
+  // Lets the clients of a finished game show their statistics and disconnect on their own
+  private static final long FINISHED_GAME_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static final long IDLE_GAME_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(15);
+  // New games are empty until the join of their creator has run
+  private static final long EMPTY_GAME_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
   private final Map<Integer, MultiplayerTypeRacerServer> games;
-  private final Map<Integer, ExecutorService> gameThreadPools;
+  private final GameShards shards;
+  private final Map<Integer, GameRoster> rosters;
   private final Map<PlayerConnection, Integer> playerToGameId;
-
-  GamesManager() {
+  private final ServerConfig config;
+  private final MessageRegistry<ClientChannel> handshakeMessages;
+  private final ScheduledExecutorService timer;
+  private final TextSelector selector;
+  // 0 sends every finished word right away
+  private final long progressIntervalMillis;
+
+  GamesManager(ServerConfig config, ServerExecutors executors, TextCorpus texts) {
+    this.config = config;
     games = new ConcurrentHashMap<>();
     playerToGameId = new ConcurrentHashMap<>();
-    gameThreadPools = new ConcurrentHashMap<>();
+    shards = new GameShards(config.getGameShards(), executors);
+    rosters = new ConcurrentHashMap<>();
+    selector = new TextSelector(texts);
+    progressIntervalMillis = config.getProgressRate() == 0 ? 0 : 1000 / config.getProgressRate();
+    timer = executors.getTimer();
+    timer.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_INTERVAL_SECONDS,
+        HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    timer.scheduleAtFixedRate(this::reapGames, REAPER_INTERVAL_SECONDS, REAPER_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+    handshakeMessages = new MessageRegistry<ClientChannel>()
+        .register(ProtocolHandshake.class, this::handleProtocolHandshake)
+        .register(NewGameRequest.class, this::handleNewGameRequest)
+        .register(JoinGameRequest.class, this::handleJoinGameRequest);
   }
 
   private static int getRandomGameId() {
@@ -40,222 +84,384 @@ class GamesManager implements Closeable {
 
   /**
    * Registers an incoming connection. That is, either a {@link NewGameRequest} or a
-   * {@link JoinGameRequest} is expected to be received on the given Socket's input stream. The
-   * requests are then handled accordingly. This means that possibly a new game is created and the
-   * connection is added as a new player. The respective request messages get validated and the
-   * client is notified if the validation fails.
+   * {@link JoinGameRequest}, optionally preceded by a {@link ProtocolHandshake}, is expected to be
+   * received on the given channel. The requests are then handled accordingly. This means that
+   * possibly a new game is created and the connection is added as a new player. The respective
+   * request messages get validated and the client is notified if the validation fails.
    *
-   * @param connectionSocket Socket connected to the client
-   * @throws IOException If connection breaks
+   * @param channel Channel connected to the client
    */
-  void handleNewPlayerConnection(Socket connectionSocket) throws IOException {
-    Connection connection = new Connection(connectionSocket);
-    try {
-      // Initially expect a message from the clients to know what they want.
-      String json = connection.readJson();
-      Gson gson = new Gson();
-
-      if (json.contains("NewGameRequest")) {
-        NewGameRequest newGameRequest = gson.fromJson(json, NewGameRequest.class);
-        handleNewGameRequest(connection, newGameRequest);
-      } else if (json.contains("JoinGameRequest")) {
-        JoinGameRequest joinGameRequest = gson.fromJson(json, JoinGameRequest.class);
-        handleJoinGameRequest(connection, joinGameRequest);
+  void handleNewPlayerConnection(ClientChannel channel) {
+    // Clients that never ask for a game must not hold their connection forever
+    ScheduledFuture<?> joinTimeout =
+        timer.schedule(() -> closeQuietly(channel), JOIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    // Initially expect a message from the clients to know what they want.
+    channel.setListener(new ClientChannel.Listener() {
+      @Override
+      public void onMessage(Object message) {
+        if (message instanceof NewGameRequest || message instanceof JoinGameRequest) {
+          joinTimeout.cancel(false);
+        }
+        handshakeMessages.dispatch(channel, message);
       }
-    } catch (IOException e) {
-      // Attempt to close
-      // (Probably useless because connection is already broken)
-      connection.close();
-      throw e;
-    }
 
+      @Override
+      public void onDisconnect() {
+        joinTimeout.cancel(false);
+        // Attempt to close
+        // (Probably useless because connection is already broken)
+        closeQuietly(channel);
+      }
+    });
+  }
 
+  private void handleProtocolHandshake(ClientChannel channel, ProtocolHandshake handshake) {
+    boolean binary = handshake.isBinary() && config.isBinaryProtocol();
+    EncodedMessage reply = MessageCodec.encodeMessage(new ProtocolHandshake(binary));
+    if (binary) {
+      channel.switchToBinary(reply);
+    } else {
+      channel.send(reply);
+    }
   }
 
-  private void handleJoinGameRequest(Connection connection, JoinGameRequest joinGameRequest)
-      throws IOException {
+  private void handleJoinGameRequest(ClientChannel channel, JoinGameRequest joinGameRequest) {
     String playerName = joinGameRequest.getPlayerName();
     int gameId = joinGameRequest.getGameId();
 
     if (!games.containsKey(gameId)) {
-      handleGameIdDoesNotExist(connection);
+      handleGameIdDoesNotExist(channel);
     } else {
-      addNewPlayerToGame(playerName, connection, gameId);
+      addNewPlayerToGame(playerName, channel, gameId);
     }
   }
 
   void handleStartGameRequest(PlayerConnection player) {
-    int gameId = playerToGameId.get(player);
-    gameThreadPools.get(gameId).execute(() -> {
+    Integer gameId = playerToGameId.get(player);
+    if (gameId == null) {
+      // The game has been removed already
+      return;
+    }
+    executeInGame(gameId, () -> {
       MultiplayerTypeRacerServer game = games.get(gameId);
-      game.prepareCountdown();
-      long countdown = game.getCountdownValue();
-      while (0 <= countdown) {
-
-        Set<PlayerConnection> players = getPlayersByGameId(game.getId());
-        for (PlayerConnection otherPlayer : players) {
-          otherPlayer.handleUpdateCountdown(countdown);
-        }
-        countdown = game.getCountdownValue();
-        try {
-          Thread.sleep(250);
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
+      if (game.isCountdownStarted()) {
+        // Every player may ask to start, only the first request counts
+        return;
       }
+      game.prepareCountdown();
+      countdownTick(gameId, game.getCountdownValue());
     });
   }
 
-  private void handleNewGameRequest(Connection connection, NewGameRequest newGameRequest) {
-    String playerName = newGameRequest.getPlayerName();
-
-    int gameId = startNewGame();
-    addNewPlayerToGame(playerName, connection, gameId);
+  /**
+   * Sends the text of the player's game, which the client has not cached. The text never changes,
+   * so the request is answered right away instead of in the game thread.
+   */
+  void handleTextRequest(PlayerConnection player) {
+    Integer gameId = playerToGameId.get(player);
+    MultiplayerTypeRacerServer game = gameId == null ? null : games.get(gameId);
+    if (game == null) {
+      // The game has been removed already
+      return;
+    }
+    TextToType text = game.getTextToType();
+    player.send(MessageCodec.encodeMessage(
+        new TextResponse(text.getTextId(), text.getFullText())));
   }
 
-  private void handleGameIdDoesNotExist(Connection connection) throws IOException {
-    GameDoesNotExistResponse response = new GameDoesNotExistResponse();
-    String json = new Gson().toJson(response);
-    connection.writeJson(json);
-    connection.close();
+  /**
+   * Sends the current countdown value to the players and schedules the next tick. Runs in the game
+   * thread, no thread waits between the ticks.
+   */
+  private void countdownTick(int gameId, long countdown) {
+    GameRoster roster = rosters.get(gameId);
+    if (roster == null) {
+      // Everybody left during the countdown
+      return;
+    }
+    broadcast(roster.getRecipients(), new UpdateCountdownNotification(countdown));
+    if (countdown == 0) {
+      games.get(gameId).startRace();
+    } else if (0 < countdown) {
+      scheduleInGame(gameId, () -> countdownTick(gameId, countdown - 1), 1, TimeUnit.SECONDS);
+    }
   }
 
-  private void addNewPlayerToGame(String playerName, Connection connection, int gameId) {
-    MultiplayerTypeRacerServer game = games.get(gameId);
-    gameThreadPools.get(gameId).execute(() -> {
-      try {
+  /**
+   * Runs the given task in the thread of a game after the given delay. The task is dropped if the
+   * game has been removed meanwhile.
+   */
+  private void scheduleInGame(int gameId, Runnable task, long delay, TimeUnit unit) {
+    timer.schedule(() -> executeInGame(gameId, task), delay, unit);
+  }
 
-        String actualPlayerName = playerName;
-        if (playerName == null || playerName.isBlank()) {
-          actualPlayerName = "unnamed";
+  /**
+   * Runs the given task in the thread of a game. The task is dropped if the game has been removed
+   * when it is about to run.
+   */
+  private void executeInGame(int gameId, Runnable task) {
+    try {
+      shards.forGame(gameId).execute(() -> {
+        if (games.containsKey(gameId)) {
+          task.run();
         }
+      });
+    } catch (RejectedExecutionException e) {
+      // The server is shutting down
+    }
+  }
 
-        if (isDuplicatePlayerName(actualPlayerName, gameId)) {
-          handleDuplicatePlayerName(connection);
-          return;
-        }
-        game.addNewPlayer(actualPlayerName);
-        try {
-          sendJoinGameResponse(connection, game, actualPlayerName);
-        } catch (IOException e) {
-          game.removePlayer(actualPlayerName);
-          if (game.getNumPlayers() == 0) {
-            removeGame(gameId);
-          }
-          return;
+  private void sendHeartbeats() {
+    for (int gameId : rosters.keySet()) {
+      executeInGame(gameId, () -> {
+        GameRoster roster = rosters.get(gameId);
+        if (roster != null) {
+          broadcast(roster.getRecipients(), new HeartbeatNotification());
         }
+      });
+    }
+  }
 
-        // Send notification to others
-        Set<PlayerConnection> players = getPlayersByGameId(gameId);
-        for (PlayerConnection player : players) {
-          player.handlePlayerJoined(game.getState());
-        }
+  private void handleNewGameRequest(ClientChannel channel, NewGameRequest newGameRequest) {
+    String playerName = newGameRequest.getPlayerName();
 
-        PlayerConnection playerConnection =
-            new PlayerConnection(actualPlayerName, this, connection);
-        playerToGameId.put(playerConnection, gameId);
-        playerConnection.awaitClientAction();
-      } catch (IOException e) {
-        // Connection is gone - do nothing
-      }
-    });
+    TextToType text = selector.select(PassageLength.parse(newGameRequest.getLength()),
+        Difficulty.parse(newGameRequest.getDifficulty()));
+    int gameId = startNewGame(text);
+    addNewPlayerToGame(playerName, channel, gameId);
   }
 
-  private boolean isDuplicatePlayerName(String playerName, int gameId) {
-    for (Map.Entry<PlayerConnection, Integer> playerAndGameId : playerToGameId.entrySet()) {
-      String otherPlayerName = playerAndGameId.getKey().getPlayerName();
-      if (playerAndGameId.getValue() == gameId && otherPlayerName.equals(playerName)) {
-        return true;
+  private void handleGameIdDoesNotExist(ClientChannel channel) {
+    GameDoesNotExistResponse response = new GameDoesNotExistResponse();
+    channel.sendAndClose(MessageCodec.encodeMessage(response));
+  }
+
+  private void addNewPlayerToGame(String playerName, ClientChannel channel, int gameId) {
+    shards.forGame(gameId).execute(() -> {
+      MultiplayerTypeRacerServer game = games.get(gameId);
+      if (game == null) {
+        // The last player left after the request was checked
+        handleGameIdDoesNotExist(channel);
+        return;
       }
-    }
-    return false;
+      GameRoster roster = rosters.get(gameId);
+      String actualPlayerName = playerName;
+      if (playerName == null || playerName.isBlank()) {
+        actualPlayerName = "unnamed";
+      }
+
+      if (roster.contains(actualPlayerName)) {
+        handleDuplicatePlayerName(channel);
+        return;
+      }
+      int slot = game.addNewPlayer(actualPlayerName);
+
+      // Send notification to others
+      broadcast(roster.getRecipients(), new PlayerJoinedNotification(actualPlayerName));
+
+      // Register before answering, so everything the client sends afterwards reaches the player
+      PlayerConnection playerConnection =
+          new PlayerConnection(actualPlayerName, slot, this, channel);
+      playerToGameId.put(playerConnection, gameId);
+      roster.add(playerConnection);
+      channel.setListener(playerConnection);
+      sendJoinGameResponse(channel, game, actualPlayerName);
+    });
   }
 
-  private void handleDuplicatePlayerName(Connection connection) throws IOException {
-    connection.writeJson(new Gson().toJson(new PlayerNameAlreadyExistsResponse()));
-    connection.close();
+  private void handleDuplicatePlayerName(ClientChannel channel) {
+    channel.sendAndClose(MessageCodec.encodeMessage(new PlayerNameAlreadyExistsResponse()));
   }
 
-  private int startNewGame() {
+  private int startNewGame(TextToType text) {
     int gameId = getRandomGameId();
-    MultiplayerTypeRacerServer newGame = new MultiplayerTypeRacerServer(gameId);
+    MultiplayerTypeRacerServer newGame = new MultiplayerTypeRacerServer(gameId, text);
+    // The roster comes first, everything finding the game expects its roster
+    rosters.put(gameId, new GameRoster());
     games.put(gameId, newGame);
-    gameThreadPools.put(gameId, Executors.newSingleThreadExecutor());
 
     return gameId;
   }
 
-  private void sendJoinGameResponse(Connection connection, MultiplayerTypeRacerServer initialModel,
-      String playerName) throws IOException {
-    JoinGameResponse response =
-        new JoinGameResponse(initialModel.getId(), playerName, initialModel.getState());
-    String json = new Gson().toJson(response);
-    connection.writeJson(json);
+  private void sendJoinGameResponse(ClientChannel channel, MultiplayerTypeRacerServer initialModel,
+      String playerName) {
+    // Clients cache texts by hash, the text itself is only sent on request
+    TextToType text = initialModel.getTextToType();
+    JoinGameResponse response = new JoinGameResponse(initialModel.getId(), playerName,
+        initialModel.getState().withText(null), text.getTextId(), text.getHash());
+    channel.send(MessageCodec.encodeMessage(response));
   }
 
   /**
-   * Notifies the model and other players of a game that a player left. Each player is notified
-   * through the respective method in {@link PlayerConnection}.
+   * Notifies the model and other players of a game that a player left.
    *
    * @param connectionThatLeft Connecion to the player who left.
    */
   void playerLeft(PlayerConnection connectionThatLeft) {
-    int gameId = playerToGameId.get(connectionThatLeft);
-    gameThreadPools.get(gameId).execute(() -> {
+    Integer gameId = playerToGameId.get(connectionThatLeft);
+    if (gameId == null) {
+      // The game has been removed already
+      return;
+    }
+    executeInGame(gameId, () -> {
       MultiplayerTypeRacerServer game = games.get(gameId);
-      game.getState().getPlayerStateMap().remove(connectionThatLeft.getPlayerName());
-      Set<PlayerConnection> players = getPlayersByGameId(game.getId());
-      for (PlayerConnection otherPlayer : players) {
-        otherPlayer.handlePlayerLeft(game);
+      GameRoster roster = rosters.get(gameId);
+      game.removePlayer(connectionThatLeft.getSlot());
+      roster.remove(connectionThatLeft);
+      playerToGameId.remove(connectionThatLeft);
+      closeQuietly(connectionThatLeft);
+      String playerName = connectionThatLeft.getPlayerName();
+      broadcast(roster.getRecipients(), new PlayerLeftNotification(playerName));
+      if (game.getNumPlayers() == 0) {
+        removeGame(gameId);
       }
     });
   }
 
   /**
-   * Notifies the model and other players of a game that a player has finished a word. Each player
-   * is notified through the respective method in {@link PlayerConnection}.
+   * Notifies the model and other players of a game that a player has finished a word.
    *
    * @param player The connection of the player who finished a word.
    * @param newWpmEntry The wpmScore from the finished word.
    */
   void playerFinishedWord(PlayerConnection player, int newWpmEntry) {
-    int gameId = playerToGameId.get(player);
-    gameThreadPools.get(gameId).execute(() -> {
+    Integer gameId = playerToGameId.get(player);
+    if (gameId == null) {
+      // The game has been removed already
+      return;
+    }
+    executeInGame(gameId, () -> {
+      if (!playerToGameId.containsKey(player)) {
+        // The player left after the word was finished, the slot may belong to someone else now
+        return;
+      }
       MultiplayerTypeRacerServer game = games.get(gameId);
-      game.updatePlayerState(player.getPlayerName(), newWpmEntry);
+      String playerName = player.getPlayerName();
+      int slot = player.getSlot();
+      game.updatePlayerState(slot, newWpmEntry);
 
-      int textlength = game.getState().getTextToType().textLength() - 1;
-      int playerprogress =
-          game.getState().getPlayerStateMap().get(player.getPlayerName()).getWordProgress();
+      int textlength = game.getTextToType().textLength() - 1;
+      int playerprogress = game.getWordProgress(slot);
+      int wpm = game.getWpm(slot);
       boolean isGameFinished = textlength == playerprogress;
-      Set<PlayerConnection> players = getPlayersByGameId(game.getId());
-      for (PlayerConnection otherPlayer : players) {
-
-        if (isGameFinished) {
-          otherPlayer.handleGameFinishedNotification(game);
-        } else {
-          otherPlayer.handlePlayerFinishedWord(game);
+      // Only the changed progress goes out, clients apply it to their copy of the game state
+      GameRoster roster = rosters.get(gameId);
+      PlayerConnection[] players = roster.getRecipients();
+      if (isGameFinished) {
+        game.finish();
+        // Words finished before must not arrive after the end of the game
+        sendProgressUpdate(gameId);
+        broadcast(players,
+            new GameFinishedNotification(playerName, playerprogress, wpm));
+      } else if (progressIntervalMillis > 0) {
+        if (roster.markProgressed(player)) {
+          scheduleInGame(gameId, () -> sendProgressUpdate(gameId), progressIntervalMillis,
+              TimeUnit.MILLISECONDS);
         }
+      } else {
+        broadcast(players,
+            new PlayerFinishedWord(playerName, playerprogress, wpm));
       }
     });
   }
 
+  /**
+   * Sends one update with the progress of all players who finished words since the last update.
+   * With batching a game sends at most one update per interval, however fast its players type.
+   */
+  private void sendProgressUpdate(int gameId) {
+    MultiplayerTypeRacerServer game = games.get(gameId);
+    GameRoster roster = rosters.get(gameId);
+    if (game == null || roster == null) {
+      return;
+    }
+    PlayerConnection[] progressed = roster.takeProgressed();
+    if (progressed.length == 0) {
+      return;
+    }
+    String[] playerNames = new String[progressed.length];
+    int[] wordProgress = new int[progressed.length];
+    int[] wpm = new int[progressed.length];
+    for (int i = 0; i < progressed.length; i++) {
+      playerNames[i] = progressed[i].getPlayerName();
+      wordProgress[i] = game.getWordProgress(progressed[i].getSlot());
+      wpm[i] = game.getWpm(progressed[i].getSlot());
+    }
+    broadcast(roster.getRecipients(),
+        new ProgressUpdateNotification(playerNames, wordProgress, wpm));
+  }
+
+  /**
+   * Sends the given message to all given players. The message is serialized only once, in the
+   * calling game thread, and the same encoded message is handed to every player.
+   *
+   * @param players The receiving players
+   * @param message The message to send
+   */
+  private void broadcast(PlayerConnection[] players, Object message) {
+    if (players.length == 0) {
+      return;
+    }
+    EncodedMessage encoded = MessageCodec.encodeMessage(message);
+    for (PlayerConnection player : players) {
+      player.send(encoded);
+    }
+  }
+
 
   private void removeGame(int gameId) {
     games.remove(gameId);
-    gameThreadPools.get(gameId).shutdownNow();
-    gameThreadPools.remove(gameId);
+    rosters.remove(gameId);
   }
 
-  private Set<PlayerConnection> getPlayersByGameId(int gameId) {
-    Set<PlayerConnection> players = new HashSet<>();
-    for (Map.Entry<PlayerConnection, Integer> entry : playerToGameId.entrySet()) {
-      if (entry.getValue() == gameId) {
-        players.add(entry.getKey());
-      }
+  /**
+   * Removes games that are over or nobody plays anymore. Runs periodically on the timer, every
+   * game is checked in its own thread.
+   */
+  private void reapGames() {
+    long now = System.currentTimeMillis();
+    for (int gameId : games.keySet()) {
+      executeInGame(gameId, () -> {
+        MultiplayerTypeRacerServer game = games.get(gameId);
+        if (isExpired(game, now)) {
+          evictGame(gameId);
+        }
+      });
+    }
+  }
+
+  private static boolean isExpired(MultiplayerTypeRacerServer game, long now) {
+    long unchangedMillis = now - game.getLastChangeMillis();
+    if (game.getPhase() == GamePhase.FINISHED) {
+      return unchangedMillis > FINISHED_GAME_GRACE_MILLIS;
     }
+    if (game.getNumPlayers() == 0) {
+      return unchangedMillis > EMPTY_GAME_GRACE_MILLIS;
+    }
+    return unchangedMillis > IDLE_GAME_TIMEOUT_MILLIS;
+  }
 
-    return players;
+  /**
+   * Closes the connections of all players still in the game and removes it. Must be called in the
+   * thread of the game.
+   */
+  private void evictGame(int gameId) {
+    PlayerConnection[] players = rosters.get(gameId).getRecipients();
+    for (PlayerConnection player : players) {
+      // Closing does not report the player as left, so nothing else refers to the game afterwards
+      playerToGameId.remove(player);
+      closeQuietly(player);
+    }
+    removeGame(gameId);
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // Ignore - the client is gone anyway
+    }
   }
 
   /**
@@ -273,8 +479,6 @@ class GamesManager implements Closeable {
       }
     }
 
-    for (ExecutorService executorService : gameThreadPools.values()) {
-      executorService.shutdownNow();
-    }
+    shards.shutdown();
   }
 }
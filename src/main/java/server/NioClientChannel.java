@@ -0,0 +1,278 @@
+package server;
+
+import communication.BinaryCodec;
+import communication.EncodedMessage;
+import communication.MessageCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ClientChannel} on a non-blocking {@link SocketChannel}. Messages are newline delimited
+ * JSON or binary frames after {@link #switchToBinary(EncodedMessage)}, exactly as written by
+ * {@link communication.Connection}. All I/O happens in the {@link NioSelectorLoop} the channel is
+ * registered at, the listener is called from that thread.
+ *
+ * <p>Messages wait in an {@link OutboundQueue} until the selector thread writes all of them with
+ * one gathering write.
+ */
+class NioClientChannel implements ClientChannel {
+  private static final int MAX_MESSAGE_SIZE = BinaryCodec.MAX_FRAME_SIZE;
+  private static final int INITIAL_REMAINDER_SIZE = 4096;
+
+  private final SocketChannel socketChannel;
+  private final NioSelectorLoop loop;
+  private final OutboundQueue outbound;
+  private final AtomicBoolean connected;
+  private SelectionKey key;
+  private ByteBuffer remainder;
+  // Messages taken from the queue, partially written to the socket so far
+  private ByteBuffer[] writing;
+  private boolean closeAfterWriting;
+  private boolean binaryReading;
+  private volatile boolean binaryWriting;
+  private volatile Listener listener;
+
+  NioClientChannel(SocketChannel socketChannel, NioSelectorLoop loop) {
+    this.socketChannel = socketChannel;
+    this.loop = loop;
+    outbound = new OutboundQueue();
+    connected = new AtomicBoolean(true);
+  }
+
+  @Override
+  public void setListener(Listener listener) {
+    boolean first = this.listener == null;
+    this.listener = listener;
+    if (first) {
+      loop.register(this);
+    }
+  }
+
+  /**
+   * Registers the channel for reading. Must be called in the selector thread.
+   *
+   * @param selector The selector of the loop
+   */
+  void registerAt(Selector selector) {
+    try {
+      key = socketChannel.register(selector, SelectionKey.OP_READ, this);
+      // Messages sent before the registration have not been written yet
+      flush();
+    } catch (ClosedChannelException e) {
+      disconnected();
+    }
+  }
+
+  /**
+   * Reads the available bytes and passes every complete message to the listener. Must be called
+   * in the selector thread.
+   *
+   * @param buffer Buffer to read into, shared by all channels of the loop
+   */
+  void handleRead(ByteBuffer buffer) {
+    try {
+      buffer.clear();
+      int read = socketChannel.read(buffer);
+      if (read < 0) {
+        disconnected();
+        return;
+      }
+      buffer.flip();
+
+      ByteBuffer input = buffer;
+      if (remainder != null) {
+        remainder = ensureCapacity(remainder, buffer.remaining());
+        remainder.put(buffer);
+        remainder.flip();
+        input = remainder;
+      }
+      readMessages(input);
+      keepRemainder(input);
+    } catch (IOException e) {
+      disconnected();
+    }
+  }
+
+  private void readMessages(ByteBuffer input) throws IOException {
+    while (connected.get() && input.hasRemaining()) {
+      Object message;
+      if (binaryReading) {
+        int length = BinaryCodec.peekFrameLength(input);
+        if (length < 0 || input.remaining() < length) {
+          return;
+        }
+        ByteBuffer frame = input.duplicate();
+        frame.limit(input.position() + length);
+        BinaryCodec.skipFrameLength(frame);
+        input.position(input.position() + length);
+        message = BinaryCodec.decodePayload(frame);
+      } else {
+        int end = indexOf(input, (byte) '\n');
+        if (end < 0) {
+          return;
+        }
+        int length = end - input.position();
+        if (length > 0 && input.get(end - 1) == '\r') {
+          length--;
+        }
+        byte[] line = new byte[length];
+        input.get(line);
+        input.position(end + 1);
+        try {
+          message = MessageCodec.decode(new String(line, StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+          throw new IOException("Malformed message", e);
+        }
+      }
+      deliver(message);
+    }
+  }
+
+  private void deliver(Object message) {
+    try {
+      listener.onMessage(message);
+    } catch (RuntimeException | AssertionError e) {
+      // Must not kill the selector thread, which serves other clients as well
+      e.printStackTrace();
+      disconnected();
+    }
+  }
+
+  private void keepRemainder(ByteBuffer input) throws IOException {
+    if (!connected.get() || !input.hasRemaining()) {
+      remainder = null;
+      return;
+    }
+    if (input == remainder) {
+      remainder.compact();
+    } else {
+      remainder = ByteBuffer.allocate(Math.max(INITIAL_REMAINDER_SIZE, input.remaining()));
+      remainder.put(input);
+    }
+    if (remainder.position() > MAX_MESSAGE_SIZE) {
+      throw new IOException("Message too long");
+    }
+  }
+
+  private static ByteBuffer ensureCapacity(ByteBuffer buffer, int additional) {
+    if (buffer.remaining() >= additional) {
+      return buffer;
+    }
+    ByteBuffer larger =
+        ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + additional));
+    buffer.flip();
+    larger.put(buffer);
+    return larger;
+  }
+
+  private static int indexOf(ByteBuffer buffer, byte value) {
+    for (int i = buffer.position(); i < buffer.limit(); i++) {
+      if (buffer.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void send(EncodedMessage message) {
+    enqueue(message, false);
+  }
+
+  private void enqueue(EncodedMessage message, boolean closeAfter) {
+    if (!connected.get()) {
+      return;
+    }
+    if (outbound.isLagging()) {
+      disconnected();
+      return;
+    }
+    if (outbound.offer(message, binaryWriting, closeAfter)) {
+      loop.execute(this::flush);
+    }
+  }
+
+  @Override
+  public void switchToBinary(EncodedMessage reply) {
+    // Called in the selector thread, so the next message read is already expected as frame
+    binaryReading = true;
+    send(reply);
+    binaryWriting = true;
+  }
+
+  @Override
+  public void sendAndClose(EncodedMessage message) {
+    enqueue(message, true);
+  }
+
+  /**
+   * Writes as much of the pending output as the socket accepts. Must be called in the selector
+   * thread.
+   */
+  void flush() {
+    if (key == null || !key.isValid()) {
+      // Not registered yet - flushed on registration
+      return;
+    }
+    try {
+      while (true) {
+        if (writing == null) {
+          List<OutboundQueue.Entry> entries = outbound.drain();
+          if (entries.isEmpty()) {
+            break;
+          }
+          writing = new ByteBuffer[entries.size()];
+          for (int i = 0; i < writing.length; i++) {
+            OutboundQueue.Entry entry = entries.get(i);
+            writing[i] = entry.getMessage().newBuffer(entry.isBinary());
+            closeAfterWriting |= entry.isCloseAfter();
+          }
+        }
+        socketChannel.write(writing);
+        if (writing[writing.length - 1].hasRemaining()) {
+          // Socket buffer is full - continue when it becomes writable
+          key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          return;
+        }
+        writing = null;
+        if (closeAfterWriting) {
+          close();
+          return;
+        }
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    } catch (IOException e) {
+      disconnected();
+    }
+  }
+
+  private void disconnected() {
+    if (connected.compareAndSet(true, false)) {
+      outbound.clear();
+      closeQuietly();
+      listener.onDisconnect();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      socketChannel.close();
+    } catch (IOException e) {
+      // Ignore - the connection is already broken
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    connected.set(false);
+    outbound.clear();
+    socketChannel.close();
+  }
+}
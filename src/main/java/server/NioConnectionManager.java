@@ -0,0 +1,60 @@
+package server;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Handles incoming connections with non-blocking channels. A few {@link NioSelectorLoop}s serve
+ * all connections, so the number of threads does not grow with the number of players.
+ */
+class NioConnectionManager {
+  private final ServerSocketChannel serverChannel;
+  private final GamesManager gamesManager;
+  private final NioSelectorLoop[] loops;
+
+  NioConnectionManager(ServerSocketChannel serverChannel, GamesManager gamesManager,
+      int selectorThreads) throws IOException {
+    this.serverChannel = serverChannel;
+    this.gamesManager = gamesManager;
+    loops = new NioSelectorLoop[selectorThreads];
+    for (int i = 0; i < selectorThreads; i++) {
+      loops[i] = new NioSelectorLoop();
+    }
+  }
+
+  /**
+   * Start the selector threads and await new connections. Accepted connections are spread over
+   * the selector loops and passed to {@link GamesManager}.
+   */
+  void start() {
+    for (int i = 0; i < loops.length; i++) {
+      Thread thread = new Thread(loops[i], "nio-selector-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    try {
+      acceptConnections();
+    } catch (IOException e) {
+      // Something went wrong - Needs to be fixed
+      throw new AssertionError(e);
+    } finally {
+      for (NioSelectorLoop loop : loops) {
+        loop.shutdown();
+      }
+    }
+  }
+
+  private void acceptConnections() throws IOException {
+    int next = 0;
+    while (true) {
+      SocketChannel socketChannel = serverChannel.accept();
+      System.out.println("new connection");
+      socketChannel.configureBlocking(false);
+      NioSelectorLoop loop = loops[next];
+      next = (next + 1) % loops.length;
+      gamesManager.handleNewPlayerConnection(new NioClientChannel(socketChannel, loop));
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread running one {@link Selector} for many {@link NioClientChannel}s. All reads and writes
+ * of the registered channels happen in this thread. Other threads hand work to the loop with
+ * {@link #execute(Runnable)}.
+ */
+class NioSelectorLoop implements Runnable {
+  private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+  private final Selector selector;
+  private final Queue<Runnable> tasks;
+  private final ByteBuffer readBuffer;
+  private volatile boolean running;
+
+  NioSelectorLoop() throws IOException {
+    selector = Selector.open();
+    tasks = new ConcurrentLinkedQueue<>();
+    // Shared by all channels of this loop, so idle connections do not hold a buffer each
+    readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    running = true;
+  }
+
+  /**
+   * Runs the given task in the selector thread.
+   *
+   * @param task The task
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Registers the given channel at this loop and starts reading from it.
+   *
+   * @param channel The channel
+   */
+  void register(NioClientChannel channel) {
+    execute(() -> channel.registerAt(selector));
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (running) {
+        selector.select();
+        runTasks();
+        handleSelectedKeys();
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      // Selector is gone - nothing left to serve
+    }
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void handleSelectedKeys() {
+    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+    while (keys.hasNext()) {
+      SelectionKey key = keys.next();
+      keys.remove();
+      NioClientChannel channel = (NioClientChannel) key.attachment();
+      if (key.isValid() && key.isReadable()) {
+        channel.handleRead(readBuffer);
+      }
+      if (key.isValid() && key.isWritable()) {
+        channel.flush();
+      }
+    }
+  }
+
+  /**
+   * Stops the loop and closes the selector.
+   */
+  void shutdown() {
+    running = false;
+    try {
+      selector.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
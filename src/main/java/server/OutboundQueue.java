@@ -0,0 +1,149 @@
+package server;
+
+import communication.EncodedMessage;
+import communication.messages.HeartbeatNotification;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.UpdateCountdownNotification;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The messages waiting to be written to one client. Every {@link ClientChannel} has one, written
+ * by a single writer that takes all pending messages at once and writes them with one flush.
+ *
+ * <p>A message that only repeats newer information, like the next countdown value or the latest
+ * progress of a player, replaces the pending message it supersedes. The new one takes the place
+ * of the superseded one, so a slow client gets the latest state instead of a backlog of stale
+ * ones, still ahead of everything queued after it, like the player leaving the game. Batched
+ * progress updates are merged with the pending one instead, as they only hold the players who
+ * progressed. Clients that still fall too far behind are reported as lagging and are disconnected
+ * by their channel.
+ *
+ * <p>All methods are thread-safe.
+ */
+class OutboundQueue {
+  static final int MAX_PENDING = 256;
+  static final long MAX_LAG_MILLIS = 10_000;
+
+  // Keyed by what a message supersedes, messages superseding nothing are their own key
+  private final Map<Object, Entry> pending = new LinkedHashMap<>();
+  private long oldestMillis;
+  private boolean writing;
+
+  /**
+   * A queued message with the format it is written in.
+   */
+  static final class Entry {
+    private final EncodedMessage message;
+    private final boolean binary;
+    private final boolean closeAfter;
+
+    private Entry(EncodedMessage message, boolean binary, boolean closeAfter) {
+      this.message = message;
+      this.binary = binary;
+      this.closeAfter = closeAfter;
+    }
+
+    EncodedMessage getMessage() {
+      return message;
+    }
+
+    /**
+     * Tells whether the message is written as binary frame.
+     *
+     * @return {@code false} for a JSON line
+     */
+    boolean isBinary() {
+      return binary;
+    }
+
+    /**
+     * Tells whether the channel is closed once the message is written.
+     *
+     * @return {@code true} for the last message of the channel
+     */
+    boolean isCloseAfter() {
+      return closeAfter;
+    }
+  }
+
+  /**
+   * Queues a message.
+   *
+   * @param message The message
+   * @param binary {@code true} to write it as binary frame
+   * @param closeAfter {@code true} to close the channel once it is written
+   * @return {@code true} if the writer is idle and has to be started by the caller
+   */
+  synchronized boolean offer(EncodedMessage message, boolean binary, boolean closeAfter) {
+    if (pending.isEmpty()) {
+      oldestMillis = System.currentTimeMillis();
+    }
+    Object key = supersededKey(message.getMessage());
+    // Keeps the time of the superseded message, a client that only gets replacements lags too
+    Entry superseded = key == null ? null : pending.get(key);
+    if (superseded != null && message.getMessage() instanceof ProgressUpdateNotification) {
+      // Encoded once more, but only for a client that lags behind
+      message = EncodedMessage.of(((ProgressUpdateNotification) superseded.getMessage()
+          .getMessage()).mergedWith((ProgressUpdateNotification) message.getMessage()));
+    }
+    Entry entry = new Entry(message, binary, closeAfter);
+    // Replacing an entry keeps its position, so progress stays ahead of a later leave of the player
+    pending.put(key == null ? entry : key, entry);
+    if (writing) {
+      return false;
+    }
+    writing = true;
+    return true;
+  }
+
+  /**
+   * Tells whether the client is too far behind: too many messages are pending or the oldest of
+   * them waits too long.
+   *
+   * @return {@code true} if the client should be disconnected
+   */
+  synchronized boolean isLagging() {
+    return pending.size() > MAX_PENDING
+        || !pending.isEmpty() && System.currentTimeMillis() - oldestMillis > MAX_LAG_MILLIS;
+  }
+
+  /**
+   * Takes all pending messages, to be written by the writer. If there are none, the writer is
+   * considered idle until the next {@link #offer}.
+   *
+   * @return The messages in order, empty if the writer has to stop
+   */
+  synchronized List<Entry> drain() {
+    if (pending.isEmpty()) {
+      writing = false;
+      return List.of();
+    }
+    List<Entry> entries = new ArrayList<>(pending.values());
+    pending.clear();
+    return entries;
+  }
+
+  /**
+   * Drops all pending messages.
+   */
+  synchronized void clear() {
+    pending.clear();
+  }
+
+  private static Object supersededKey(Object message) {
+    if (message instanceof UpdateCountdownNotification
+        || message instanceof HeartbeatNotification
+        || message instanceof ProgressUpdateNotification) {
+      return message.getClass();
+    }
+    if (message instanceof PlayerFinishedWord
+        && ((PlayerFinishedWord) message).getPlayerName() != null) {
+      return Map.entry(PlayerFinishedWord.class, ((PlayerFinishedWord) message).getPlayerName());
+    }
+    return null;
+  }
+}
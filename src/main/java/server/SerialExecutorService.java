@@ -0,0 +1,107 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks one after another in submission order on a shared backing executor. This gives the
+ * same guarantees as a single thread executor without owning a thread.
+ */
+class SerialExecutorService extends AbstractExecutorService {
+  private final Executor backingExecutor;
+  private final Queue<Runnable> tasks;
+  private boolean active;
+  private boolean shutdown;
+  private Thread runner;
+
+  SerialExecutorService(Executor backingExecutor) {
+    this.backingExecutor = backingExecutor;
+    tasks = new ArrayDeque<>();
+  }
+
+  @Override
+  public synchronized void execute(Runnable task) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    tasks.add(task);
+    if (!active) {
+      active = true;
+      backingExecutor.execute(this::runTasks);
+    }
+  }
+
+  private void runTasks() {
+    while (true) {
+      Runnable task;
+      synchronized (this) {
+        task = tasks.poll();
+        if (task == null) {
+          active = false;
+          notifyAll();
+          return;
+        }
+        runner = Thread.currentThread();
+      }
+
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        // Same as a dying pool thread: report and continue with the next task
+        e.printStackTrace();
+      } finally {
+        synchronized (this) {
+          runner = null;
+        }
+        // Do not leak an interrupt meant for this task into the next one
+        Thread.interrupted();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    shutdown = true;
+  }
+
+  @Override
+  public synchronized List<Runnable> shutdownNow() {
+    shutdown = true;
+    List<Runnable> pending = new ArrayList<>(tasks);
+    tasks.clear();
+    if (runner != null) {
+      runner.interrupt();
+    }
+    return pending;
+  }
+
+  @Override
+  public synchronized boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public synchronized boolean isTerminated() {
+    return shutdown && !active;
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!isTerminated()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+}
@@ -2,43 +2,76 @@ package server;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import server.corpus.MappedCorpus;
+import server.model.TextCorpus;
+import server.model.TextDatabase;
 
 /**
  * Server main class which is used to run the game.
  */
 public class Server implements Closeable {
-  private final int port;
+  private final ServerConfig config;
   private ServerSocket serverSocket;
+  private ServerSocketChannel serverChannel;
+  private ServerExecutors executors;
   private GamesManager gamesManager;
+  private MappedCorpus corpus;
 
   /**
    * Main class for the game server. The class starts the server sockets and delegates connection
-   * and game handling to {@link ConnectionManager} and {@link GamesManager}
+   * and game handling to {@link ConnectionManager} or {@link NioConnectionManager} and
+   * {@link GamesManager}
    */
-  Server(int port) {
-    this.port = port;
+  Server(ServerConfig config) {
+    this.config = config;
   }
 
   /**
    * Main method for the server.
    *
-   * @param args Commandline arguments
+   * @param args Commandline arguments, see {@link ServerConfig#parse(String[])}
    */
   public static void main(final String[] args) throws IOException {
-    Server server = new Server(4441);
-    server.start();
-    server.close();
+    Server server = new Server(ServerConfig.parse(args));
+    try {
+      server.start();
+    } finally {
+      server.close();
+    }
   }
 
   private void start() throws IOException {
     System.out.println("Start Server...");
-    gamesManager = new GamesManager();
+    executors = config.isVirtualThreads()
+        ? ServerExecutors.virtualThreads()
+        : ServerExecutors.platformThreads();
+    TextCorpus texts;
+    if (config.getCorpus() != null) {
+      corpus = MappedCorpus.open(config.getCorpus());
+      System.out.println("Playing " + corpus.size() + " passages of " + config.getCorpus());
+      texts = corpus;
+    } else {
+      texts = TextDatabase.getDefault();
+    }
+    gamesManager = new GamesManager(config, executors, texts);
+
+    if (config.isNio()) {
+      serverChannel = ServerSocketChannel.open();
+      serverChannel.bind(new InetSocketAddress(config.getPort()));
+      NioConnectionManager connectionManager =
+          new NioConnectionManager(serverChannel, gamesManager, config.getSelectorThreads());
 
-    serverSocket = new ServerSocket(port);
-    ConnectionManager connectionManager = new ConnectionManager(serverSocket, gamesManager);
+      connectionManager.start();
+    } else {
+      serverSocket = new ServerSocket(config.getPort());
+      ConnectionManager connectionManager =
+          new ConnectionManager(serverSocket, gamesManager, executors);
 
-    connectionManager.start();
+      connectionManager.start();
+    }
   }
 
   @Override
@@ -47,8 +80,20 @@ public class Server implements Closeable {
       gamesManager.close();
     }
 
+    if (executors != null) {
+      executors.shutdown();
+    }
+
     if (serverSocket != null) {
       serverSocket.close();
     }
+
+    if (serverChannel != null) {
+      serverChannel.close();
+    }
+
+    if (corpus != null) {
+      corpus.close();
+    }
   }
 }
@@ -0,0 +1,127 @@
+package server;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Options for running the server, read from the command line arguments.
+ */
+class ServerConfig {
+  private static final int DEFAULT_PORT = 4441;
+  private static final int MAX_PROGRESS_RATE = 1000;
+
+  private int port;
+  private boolean nio;
+  private boolean virtualThreads;
+  private int selectorThreads;
+  private int gameShards;
+  private boolean binaryProtocol;
+  private Path corpus;
+  private int progressRate;
+
+  private ServerConfig() {
+    port = DEFAULT_PORT;
+    binaryProtocol = true;
+    selectorThreads = Runtime.getRuntime().availableProcessors();
+    gameShards = Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Creates the configuration from the given command line arguments. Supported are
+   * {@code --port=<port>}, {@code --nio} to serve all connections with a few selector threads,
+   * {@code --selector-threads=<count>}, {@code --game-shards=<count>} to set how many serial
+   * executors run the games, {@code --virtual-threads} to run connections and games on virtual
+   * threads, {@code --json-only} to refuse the binary protocol to clients asking for it,
+   * {@code --corpus=<file>} to play the passages of a corpus pack instead of the bundled texts and
+   * {@code --progress-rate=<per second>} to batch the progress of the players, at most 1000.
+   *
+   * @param args Commandline arguments
+   * @return The configuration
+   * @throws IllegalArgumentException If an argument is unknown or malformed
+   */
+  static ServerConfig parse(String[] args) {
+    ServerConfig config = new ServerConfig();
+    for (String arg : args) {
+      if (arg.equals("--nio")) {
+        config.nio = true;
+      } else if (arg.equals("--virtual-threads")) {
+        config.virtualThreads = true;
+      } else if (arg.equals("--json-only")) {
+        config.binaryProtocol = false;
+      } else if (arg.startsWith("--corpus=")) {
+        config.corpus = Paths.get(arg.substring(arg.indexOf('=') + 1));
+      } else if (arg.startsWith("--port=")) {
+        config.port = parsePositive(arg);
+      } else if (arg.startsWith("--selector-threads=")) {
+        config.selectorThreads = parsePositive(arg);
+      } else if (arg.startsWith("--game-shards=")) {
+        config.gameShards = parsePositive(arg);
+      } else if (arg.startsWith("--progress-rate=")) {
+        config.progressRate = parsePositive(arg);
+        if (config.progressRate > MAX_PROGRESS_RATE) {
+          // Updates are scheduled in whole milliseconds
+          throw new IllegalArgumentException(
+              "At most " + MAX_PROGRESS_RATE + " updates per second: " + arg);
+        }
+      } else {
+        throw new IllegalArgumentException("Unknown argument: " + arg);
+      }
+    }
+    return config;
+  }
+
+  private static int parsePositive(String arg) {
+    String value = arg.substring(arg.indexOf('=') + 1);
+    try {
+      int number = Integer.parseInt(value);
+      if (number > 0) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Positive number expected: " + arg);
+  }
+
+  int getPort() {
+    return port;
+  }
+
+  boolean isNio() {
+    return nio;
+  }
+
+  boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  int getSelectorThreads() {
+    return selectorThreads;
+  }
+
+  int getGameShards() {
+    return gameShards;
+  }
+
+  boolean isBinaryProtocol() {
+    return binaryProtocol;
+  }
+
+  /**
+   * Returns how often per second the progress of the players in a game is sent at most.
+   *
+   * @return The rate or 0 to send every finished word right away
+   */
+  int getProgressRate() {
+    return progressRate;
+  }
+
+  /**
+   * Returns the corpus pack to play.
+   *
+   * @return The file or {@code null} for the texts bundled with the server
+   */
+  Path getCorpus() {
+    return corpus;
+  }
+}
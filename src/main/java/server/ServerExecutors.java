@@ -0,0 +1,99 @@
+package server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates the executors of the server. With platform threads every executor owns its threads as
+ * before. With virtual threads all executors share one virtual-thread-per-task executor, so the
+ * number of platform threads no longer grows with the number of players and games.
+ *
+ * <p>In both modes one shared timer thread schedules all delayed and periodic work, like countdown
+ * ticks and heartbeats. Timer tasks only hand work over to other executors and never block.
+ */
+class ServerExecutors {
+  private static final int CONNECTION_POOL_SIZE = 5;
+
+  private final ExecutorService virtualThreads;
+  private final ScheduledExecutorService timer;
+
+  private ServerExecutors(ExecutorService virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    timer = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "server-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns executors running on platform threads.
+   *
+   * @return The executors
+   */
+  static ServerExecutors platformThreads() {
+    return new ServerExecutors(null);
+  }
+
+  /**
+   * Returns executors running on virtual threads. The build targets Java 11, see
+   * {@code build.gradle}, so the virtual thread executor is looked up at runtime.
+   *
+   * @return The executors
+   * @throws IllegalStateException If the running JVM does not support virtual threads
+   */
+  static ServerExecutors virtualThreads() {
+    try {
+      Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      return new ServerExecutors((ExecutorService) executor);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+    }
+  }
+
+  /**
+   * Creates the executor handling newly accepted connections.
+   *
+   * @return The executor
+   */
+  ExecutorService newConnectionPool() {
+    if (virtualThreads == null) {
+      return Executors.newFixedThreadPool(CONNECTION_POOL_SIZE);
+    }
+    return virtualThreads;
+  }
+
+  /**
+   * Returns the timer shared by the whole server. Scheduled tasks must not block, longer work is
+   * passed on to the executor it belongs to.
+   *
+   * @return The timer
+   */
+  ScheduledExecutorService getTimer() {
+    return timer;
+  }
+
+  /**
+   * Creates an executor that runs its tasks one after another in submission order.
+   *
+   * @return The executor
+   */
+  ExecutorService newSerialExecutor() {
+    if (virtualThreads == null) {
+      return Executors.newSingleThreadExecutor();
+    }
+    return new SerialExecutorService(virtualThreads);
+  }
+
+  /**
+   * Stops the timer and, with virtual threads, the shared executor.
+   */
+  void shutdown() {
+    timer.shutdownNow();
+    if (virtualThreads != null) {
+      virtualThreads.shutdownNow();
+    }
+  }
+}
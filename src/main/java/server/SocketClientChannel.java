@@ -0,0 +1,124 @@
+package server;
+
+import communication.Connection;
+import communication.EncodedMessage;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ClientChannel} on a blocking {@link Connection}. Reading and writing each happen in their
+ * own thread. Messages wait in an {@link OutboundQueue} while the writing thread is busy.
+ */
+class SocketClientChannel implements ClientChannel {
+  private final Connection connection;
+  private final ExecutorService readingPool;
+  private final ExecutorService writingPool;
+  private final OutboundQueue outbound;
+  private final AtomicBoolean connected;
+  private final AtomicBoolean reading;
+  private volatile boolean binaryWriting;
+  private volatile Listener listener;
+
+  SocketClientChannel(Socket socket, ServerExecutors executors) throws IOException {
+    connection = new Connection(socket);
+    readingPool = executors.newSerialExecutor();
+    writingPool = executors.newSerialExecutor();
+    outbound = new OutboundQueue();
+    connected = new AtomicBoolean(true);
+    reading = new AtomicBoolean(false);
+  }
+
+  @Override
+  public void setListener(Listener listener) {
+    this.listener = listener;
+    if (reading.compareAndSet(false, true)) {
+      readingPool.execute(this::readMessages);
+    }
+  }
+
+  private void readMessages() {
+    try {
+      while (connected.get()) {
+        Object message = connection.readMessage();
+        listener.onMessage(message);
+      }
+    } catch (IOException e) {
+      disconnected();
+    } catch (RuntimeException | AssertionError e) {
+      // Malformed or unexpected messages drop the client like with NioClientChannel
+      e.printStackTrace();
+      disconnected();
+    }
+  }
+
+  @Override
+  public void send(EncodedMessage message) {
+    enqueue(message, false);
+  }
+
+  private void enqueue(EncodedMessage message, boolean closeAfter) {
+    if (!connected.get()) {
+      return;
+    }
+    if (outbound.isLagging()) {
+      disconnected();
+      return;
+    }
+    if (outbound.offer(message, binaryWriting, closeAfter)) {
+      writingPool.execute(this::writeMessages);
+    }
+  }
+
+  private void writeMessages() {
+    try {
+      List<OutboundQueue.Entry> entries = outbound.drain();
+      while (!entries.isEmpty()) {
+        boolean close = false;
+        for (OutboundQueue.Entry entry : entries) {
+          connection.append(entry.getMessage(), entry.isBinary());
+          close |= entry.isCloseAfter();
+        }
+        connection.flush();
+        if (close) {
+          close();
+          return;
+        }
+        entries = outbound.drain();
+      }
+    } catch (IOException e) {
+      disconnected();
+    }
+  }
+
+  @Override
+  public void switchToBinary(EncodedMessage reply) {
+    // Called by the reading thread, so the next read already expects a frame
+    connection.setBinaryReading(true);
+    send(reply);
+    binaryWriting = true;
+  }
+
+  @Override
+  public void sendAndClose(EncodedMessage message) {
+    enqueue(message, true);
+  }
+
+  private void disconnected() {
+    if (connected.compareAndSet(true, false)) {
+      outbound.clear();
+      listener.onDisconnect();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    connected.set(false);
+    outbound.clear();
+    connection.close();
+    readingPool.shutdownNow();
+    writingPool.shutdownNow();
+  }
+}
@@ -0,0 +1,368 @@
+package server.corpus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import server.model.Difficulty;
+
+/**
+ * Offline command building a corpus pack from raw text files, e.g. books. The files are read in
+ * parallel and streamed line by line. Their text is normalized to the tokenization of
+ * {@link server.model.TextToType}, i.e. words separated by single spaces, and cut into passages
+ * of whole sentences. Duplicate passages are skipped.
+ *
+ * <p>Memory does not grow with the size of the files, only by a few bytes per written passage for
+ * the index and the duplicate check.
+ *
+ * <pre>
+ * CorpusIngest [--min-words=20] [--max-words=60] [--threads=4] &lt;pack&gt; &lt;text file&gt;...
+ * </pre>
+ */
+public final class CorpusIngest {
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final Object END_OF_FILE = new Object();
+
+  private final int minWords;
+  private final int maxWords;
+  private final int threads;
+  private final int queueCapacity;
+
+  CorpusIngest(int minWords, int maxWords, int threads) {
+    this(minWords, maxWords, threads, QUEUE_CAPACITY);
+  }
+
+  CorpusIngest(int minWords, int maxWords, int threads, int queueCapacity) {
+    this.minWords = minWords;
+    this.maxWords = maxWords;
+    this.threads = threads;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Runs the command.
+   *
+   * @param args Options followed by the pack to write and the text files to read
+   * @throws Exception If reading or writing fails
+   */
+  public static void main(String[] args) throws Exception {
+    int minWords = 20;
+    int maxWords = 60;
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<Path> files = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--min-words=")) {
+        minWords = parsePositive(arg);
+      } else if (arg.startsWith("--max-words=")) {
+        maxWords = parsePositive(arg);
+      } else if (arg.startsWith("--threads=")) {
+        threads = parsePositive(arg);
+      } else if (arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unknown argument: " + arg);
+      } else {
+        files.add(Paths.get(arg));
+      }
+    }
+    if (files.size() < 2 || minWords > maxWords) {
+      System.err.println("Usage: CorpusIngest [--min-words=<count>] [--max-words=<count>] "
+          + "[--threads=<count>] <pack> <text file>...");
+      System.exit(1);
+    }
+
+    CorpusIngest ingest = new CorpusIngest(minWords, maxWords, threads);
+    Statistics statistics = ingest.run(files.get(0), files.subList(1, files.size()));
+    System.out.println(statistics);
+  }
+
+  private static int parsePositive(String arg) {
+    int number = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+    if (number <= 0) {
+      throw new IllegalArgumentException("Positive number expected: " + arg);
+    }
+    return number;
+  }
+
+  /**
+   * Reads the given files and writes their passages to the pack. If anything fails, the pack is
+   * left as it was.
+   *
+   * @param pack The pack to write
+   * @param inputs The text files
+   * @return What has been written
+   * @throws IOException If a file cannot be read or the pack cannot be written
+   * @throws InterruptedException If interrupted while waiting for passages
+   */
+  Statistics run(Path pack, List<Path> inputs) throws IOException, InterruptedException {
+    BlockingQueue<Object> passages = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicInteger failedFiles = new AtomicInteger();
+    ExecutorService readers = Executors.newFixedThreadPool(Math.min(threads, inputs.size()),
+        task -> new Thread(task, "corpus-reader"));
+    for (Path input : inputs) {
+      readers.execute(() -> {
+        try {
+          readPassages(input, passages);
+        } catch (IOException e) {
+          System.err.println("Cannot read " + input + ": " + e);
+          failedFiles.incrementAndGet();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          endOfFile(passages);
+        }
+      });
+    }
+    readers.shutdown();
+
+    Statistics statistics = new Statistics();
+    LongHashSet seen = new LongHashSet();
+    boolean written = false;
+    CorpusPackWriter writer = null;
+    try {
+      writer = new CorpusPackWriter(pack);
+      int openFiles = inputs.size();
+      while (openFiles > 0) {
+        Object next = passages.take();
+        if (next == END_OF_FILE) {
+          openFiles--;
+        } else if (seen.add(hash((String) next))) {
+          writer.add((String) next);
+          statistics.add((String) next);
+        } else {
+          statistics.duplicates++;
+        }
+      }
+      written = true;
+    } finally {
+      if (!written) {
+        // Readers waiting for room in the queue would never finish otherwise
+        readers.shutdownNow();
+        if (writer != null) {
+          writer.abort();
+        }
+      }
+    }
+    if (failedFiles.get() > 0 || statistics.passages == 0) {
+      writer.abort();
+      throw new IOException(failedFiles.get() > 0
+          ? failedFiles.get() + " files could not be read" : "No passages found");
+    }
+    writer.close();
+    return statistics;
+  }
+
+  private static void endOfFile(BlockingQueue<Object> passages) {
+    try {
+      // Waits for room, the writer only finishes once it got the end of every file
+      passages.put(END_OF_FILE);
+    } catch (InterruptedException e) {
+      // Only happens when the writer gave up
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void readPassages(Path input, BlockingQueue<Object> passages)
+      throws IOException, InterruptedException {
+    // Broken encodings in raw texts are common, replace instead of failing
+    InputStreamReader decoder = new InputStreamReader(Files.newInputStream(input),
+        StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    try (BufferedReader reader = new BufferedReader(decoder)) {
+      StringBuilder passage = new StringBuilder();
+      int words = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String normalized = normalize(line);
+        if (normalized.isEmpty()) {
+          continue;
+        }
+        for (String word : normalized.split(" ")) {
+          if (words > 0) {
+            passage.append(' ');
+          }
+          passage.append(word);
+          words++;
+          if (words >= maxWords || words >= minWords && endsSentence(word)) {
+            passages.put(passage.toString());
+            passage.setLength(0);
+            words = 0;
+          }
+        }
+      }
+      if (words >= minWords) {
+        passages.put(passage.toString());
+      }
+    }
+  }
+
+  /**
+   * Normalizes a line of raw text. Typographic quotes, dashes and ellipses are replaced by the
+   * characters found on a keyboard, invisible characters are removed and all whitespace is
+   * collapsed to single spaces between words.
+   *
+   * @param line The raw line
+   * @return The normalized line without leading or trailing spaces
+   */
+  static String normalize(String line) {
+    StringBuilder normalized = new StringBuilder(line.length());
+    boolean space = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      String replacement;
+      switch (c) {
+        case '\u2018': // Single quotation marks
+        case '\u2019':
+        case '\u201A':
+        case '\u2032':
+          replacement = "'";
+          break;
+        case '\u201C': // Double quotation marks
+        case '\u201D':
+        case '\u201E':
+        case '\u2033':
+        case '\u00AB':
+        case '\u00BB':
+          replacement = "\"";
+          break;
+        case '\u2010': // Hyphens, dashes and minus
+        case '\u2011':
+        case '\u2013':
+        case '\u2014':
+        case '\u2212':
+          replacement = "-";
+          break;
+        case '\u2026': // Ellipsis
+          replacement = "...";
+          break;
+        case '\u00AD': // Soft hyphen, zero width characters and byte order mark
+        case '\u200B':
+        case '\u200C':
+        case '\u200D':
+        case '\uFEFF':
+          replacement = "";
+          break;
+        default:
+          if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+            space = normalized.length() > 0;
+            continue;
+          }
+          replacement = Character.isISOControl(c) ? "" : String.valueOf(c);
+      }
+      if (replacement.isEmpty()) {
+        continue;
+      }
+      if (space) {
+        normalized.append(' ');
+        space = false;
+      }
+      normalized.append(replacement);
+    }
+    return normalized.toString();
+  }
+
+  private static boolean endsSentence(String word) {
+    int end = word.length();
+    while (end > 0 && "\"')]".indexOf(word.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    return end > 0 && ".!?".indexOf(word.charAt(end - 1)) >= 0;
+  }
+
+  private static long hash(String passage) {
+    // 64 bit FNV-1a, collisions are negligible for corpora of millions of passages
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < passage.length(); i++) {
+      hash ^= passage.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * What has been written to a pack.
+   */
+  static class Statistics {
+    private int passages;
+    private int duplicates;
+    private long words;
+    private int minWords = Integer.MAX_VALUE;
+    private int maxWords;
+    private long rarePermilles;
+
+    private void add(String passage) {
+      int passageWords = CorpusPack.countWords(passage);
+      passages++;
+      words += passageWords;
+      minWords = Math.min(minWords, passageWords);
+      maxWords = Math.max(maxWords, passageWords);
+      rarePermilles += Difficulty.rarePermille(passage);
+    }
+
+    int getPassages() {
+      return passages;
+    }
+
+    int getDuplicates() {
+      return duplicates;
+    }
+
+    @Override
+    public String toString() {
+      return "Wrote " + passages + " passages, skipped " + duplicates + " duplicates. Words per "
+          + "passage: min " + minWords + ", average " + words / passages + ", max " + maxWords
+          + ". Rare characters: " + rarePermilles / passages + " per mille on average";
+    }
+  }
+
+  /**
+   * Set of hashes without boxing, open addressing with linear probing.
+   */
+  private static class LongHashSet {
+    private long[] slots = new long[1024];
+    private int size;
+
+    boolean add(long value) {
+      // 0 marks free slots
+      long key = value == 0 ? 1 : value;
+      if (2 * (size + 1) > slots.length) {
+        long[] old = slots;
+        slots = new long[2 * old.length];
+        for (long oldKey : old) {
+          if (oldKey != 0) {
+            insert(oldKey);
+          }
+        }
+      }
+      if (!insert(key)) {
+        return false;
+      }
+      size++;
+      return true;
+    }
+
+    private boolean insert(long key) {
+      int mask = slots.length - 1;
+      int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+      while (slots[slot] != 0) {
+        if (slots[slot] == key) {
+          return false;
+        }
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = key;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package server.corpus;
+
+import server.model.TextCorpus;
+
+/**
+ * Layout of a corpus pack file. All numbers are big endian.
+ *
+ * <pre>
+ * header   magic (int), format version (int), number of passages (int), reserved (int)
+ * index    one entry per passage, ordered by text id:
+ *            offset of the passage in the file (long), length in bytes (int),
+ *            number of words (short), rare characters per mille (short)
+ * buckets  number of passages per bucket (int), for every bucket of
+ *            {@link server.model.TextCorpus#bucket}
+ *          text ids of all passages (int), grouped by bucket in bucket order
+ * data     the passages, UTF-8 without separators
+ * </pre>
+ *
+ * <p>The index has a fixed entry size, so the entry of any passage is found without reading the
+ * others. The same holds for the n-th passage of a bucket.
+ */
+final class CorpusPack {
+  static final int MAGIC = 0x54525043;
+  static final int FORMAT_VERSION = 2;
+  static final int HEADER_SIZE = 16;
+  static final int ENTRY_SIZE = 16;
+
+  private CorpusPack() {}
+
+  /**
+   * Returns where the index entry of a passage starts.
+   *
+   * @param textId The id of the passage
+   * @return The position in the file
+   */
+  static long entryPosition(int textId) {
+    return HEADER_SIZE + (long) textId * ENTRY_SIZE;
+  }
+
+  /**
+   * Returns where the bucket sizes start.
+   *
+   * @param count The number of passages
+   * @return The position in the file
+   */
+  static long bucketSizesPosition(int count) {
+    return entryPosition(count);
+  }
+
+  /**
+   * Returns where the text ids grouped by bucket start.
+   *
+   * @param count The number of passages
+   * @return The position in the file
+   */
+  static long bucketIdsPosition(int count) {
+    return bucketSizesPosition(count) + TextCorpus.BUCKET_COUNT * Integer.BYTES;
+  }
+
+  /**
+   * Returns where the passages start.
+   *
+   * @param count The number of passages
+   * @return The position in the file
+   */
+  static long dataPosition(int count) {
+    return bucketIdsPosition(count) + (long) count * Integer.BYTES;
+  }
+
+  /**
+   * Counts the words of a passage the way {@link server.model.TextToType} splits it.
+   *
+   * @param passage The passage
+   * @return The number of words
+   */
+  static int countWords(String passage) {
+    int words = 1;
+    for (int i = 0; i < passage.length(); i++) {
+      if (passage.charAt(i) == ' ') {
+        words++;
+      }
+    }
+    return words;
+  }
+}
@@ -0,0 +1,169 @@
+package server.corpus;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import server.model.Difficulty;
+import server.model.PassageLength;
+import server.model.TextCorpus;
+
+/**
+ * Writes a corpus pack passage by passage. The passages are streamed to a temporary file next to
+ * the pack, only their index entries stay in memory until {@link #close()} writes the pack. The
+ * pack is written next to its final place and moved there once complete, so a failure never
+ * leaves a truncated pack behind. Call {@link #abort()} instead of closing to give up.
+ */
+public class CorpusPackWriter implements Closeable {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Path pack;
+  private final Path data;
+  private final OutputStream dataOutput;
+  private boolean closed;
+  private long dataSize;
+  private int count;
+  private int[] byteLengths;
+  private short[] wordCounts;
+  private short[] rarePermilles;
+  private byte[] buckets;
+
+  /**
+   * Starts writing a pack.
+   *
+   * @param pack The file to write, replaced if it exists
+   * @throws IOException If the temporary file cannot be created
+   */
+  public CorpusPackWriter(Path pack) throws IOException {
+    this.pack = pack;
+    Path directory = pack.toAbsolutePath().getParent();
+    data = Files.createTempFile(directory, pack.getFileName().toString(), ".data");
+    dataOutput = new BufferedOutputStream(Files.newOutputStream(data));
+    byteLengths = new int[INITIAL_CAPACITY];
+    wordCounts = new short[INITIAL_CAPACITY];
+    rarePermilles = new short[INITIAL_CAPACITY];
+    buckets = new byte[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Appends a passage. Its text id is the number of passages added before.
+   *
+   * @param passage The passage, words separated by single spaces
+   * @throws IOException If writing fails
+   */
+  public void add(String passage) throws IOException {
+    byte[] bytes = passage.getBytes(StandardCharsets.UTF_8);
+    dataOutput.write(bytes);
+    dataSize += bytes.length;
+    if (count == byteLengths.length) {
+      int capacity = 2 * count;
+      byteLengths = Arrays.copyOf(byteLengths, capacity);
+      wordCounts = Arrays.copyOf(wordCounts, capacity);
+      rarePermilles = Arrays.copyOf(rarePermilles, capacity);
+      buckets = Arrays.copyOf(buckets, capacity);
+    }
+    int wordCount = CorpusPack.countWords(passage);
+    byteLengths[count] = bytes.length;
+    wordCounts[count] = (short) Math.min(wordCount, Short.MAX_VALUE);
+    rarePermilles[count] = (short) Difficulty.rarePermille(passage);
+    buckets[count] = (byte) TextCorpus.bucket(PassageLength.of(wordCount),
+        Difficulty.of(passage, wordCount));
+    count++;
+  }
+
+  /**
+   * Returns how many passages have been added.
+   *
+   * @return The number of passages
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Gives up writing the pack. The pack is left as it was and the temporary file is removed.
+   * Closing the writer afterwards does nothing.
+   *
+   * @throws IOException If the temporary file cannot be removed
+   */
+  public void abort() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      dataOutput.close();
+    } finally {
+      Files.deleteIfExists(data);
+    }
+  }
+
+  /**
+   * Writes the header, index and buckets followed by the passages to the pack and removes the
+   * temporary file.
+   *
+   * @throws IOException If writing fails, the pack is left as it was then
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    Path partial = pack.resolveSibling(pack.getFileName() + ".part");
+    try {
+      dataOutput.close();
+      long offset = CorpusPack.dataPosition(count);
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(partial)))) {
+        output.writeInt(CorpusPack.MAGIC);
+        output.writeInt(CorpusPack.FORMAT_VERSION);
+        output.writeInt(count);
+        output.writeInt(0);
+        for (int i = 0; i < count; i++) {
+          output.writeLong(offset);
+          output.writeInt(byteLengths[i]);
+          output.writeShort(wordCounts[i]);
+          output.writeShort(rarePermilles[i]);
+          offset += byteLengths[i];
+        }
+        int[] bucketSizes = new int[TextCorpus.BUCKET_COUNT];
+        for (int i = 0; i < count; i++) {
+          bucketSizes[buckets[i]]++;
+        }
+        for (int bucketSize : bucketSizes) {
+          output.writeInt(bucketSize);
+        }
+        for (int bucket = 0; bucket < TextCorpus.BUCKET_COUNT; bucket++) {
+          for (int i = 0; i < count; i++) {
+            if (buckets[i] == bucket) {
+              output.writeInt(i);
+            }
+          }
+        }
+      }
+      try (FileChannel source = FileChannel.open(data);
+          FileChannel target = FileChannel.open(partial, StandardOpenOption.APPEND)) {
+        if (source.size() != dataSize) {
+          throw new IOException("Passages incompletely written");
+        }
+        long transferred = 0;
+        while (transferred < dataSize) {
+          transferred += source.transferTo(transferred, dataSize - transferred, target);
+        }
+      }
+      Files.move(partial, pack, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(partial);
+      Files.deleteIfExists(data);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package server.corpus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import server.model.TextCorpus;
+import server.model.TextToType;
+
+/**
+ * {@link TextCorpus} on a memory-mapped corpus pack, see {@link CorpusPack}. Opening the pack only
+ * reads its header, passages are read from the mapping when a game needs them. Recently used
+ * passages are kept in a small cache, so games on the same passage share one {@link TextToType}.
+ */
+public class MappedCorpus implements TextCorpus, Closeable {
+  // Mappings are limited to 2 GB, larger packs are mapped in segments when first touched
+  private static final long SEGMENT_SIZE = 1L << 30;
+  private static final int CACHE_SIZE = 256;
+
+  private final FileChannel channel;
+  private final int count;
+  private final long dataStart;
+  private final long fileSize;
+  private final MappedByteBuffer index;
+  private final int bucketIds;
+  private final int[] bucketStarts;
+  private final AtomicReferenceArray<MappedByteBuffer> segments;
+  private final Map<Integer, TextToType> cache;
+
+  private MappedCorpus(FileChannel channel, int count) throws IOException {
+    this.channel = channel;
+    this.count = count;
+    dataStart = CorpusPack.dataPosition(count);
+    fileSize = channel.size();
+    if (fileSize < dataStart) {
+      throw new IOException("Corpus pack is truncated");
+    }
+    // Maps the index entries and the buckets, positions in it are relative to the header's end
+    index = channel.map(FileChannel.MapMode.READ_ONLY, CorpusPack.HEADER_SIZE,
+        dataStart - CorpusPack.HEADER_SIZE);
+    bucketIds = (int) (CorpusPack.bucketIdsPosition(count) - CorpusPack.HEADER_SIZE);
+    bucketStarts = new int[BUCKET_COUNT + 1];
+    int bucketSizes = (int) (CorpusPack.bucketSizesPosition(count) - CorpusPack.HEADER_SIZE);
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      int size = index.getInt(bucketSizes + bucket * Integer.BYTES);
+      if (size < 0 || size > count - bucketStarts[bucket]) {
+        throw new IOException("Corrupt bucket sizes");
+      }
+      bucketStarts[bucket + 1] = bucketStarts[bucket] + size;
+    }
+    segments = new AtomicReferenceArray<>(
+        (int) ((fileSize - dataStart + SEGMENT_SIZE - 1) / SEGMENT_SIZE));
+    cache = new LinkedHashMap<>(2 * CACHE_SIZE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, TextToType> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Opens a corpus pack.
+   *
+   * @param file The pack
+   * @return The corpus
+   * @throws IOException If the file cannot be read or is no valid pack
+   */
+  public static MappedCorpus open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(CorpusPack.HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException("Corpus pack is truncated");
+        }
+      }
+      header.flip();
+      if (header.getInt() != CorpusPack.MAGIC || header.getInt() != CorpusPack.FORMAT_VERSION) {
+        throw new IOException("Not a corpus pack: " + file);
+      }
+      int count = header.getInt();
+      if (count <= 0 || CorpusPack.dataPosition(count) > Integer.MAX_VALUE) {
+        throw new IOException("Invalid number of passages: " + count);
+      }
+      return new MappedCorpus(channel, count);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of words of a passage, without reading the passage.
+   *
+   * @param textId The id of the passage
+   * @return The number of words
+   */
+  public int getWordCount(int textId) {
+    return index.getShort(textId * CorpusPack.ENTRY_SIZE + 12);
+  }
+
+  /**
+   * Returns the share of characters harder to type than lower case letters, without reading the
+   * passage.
+   *
+   * @param textId The id of the passage
+   * @return The share in per mille
+   */
+  public int getRarePermille(int textId) {
+    return index.getShort(textId * CorpusPack.ENTRY_SIZE + 14);
+  }
+
+  @Override
+  public int getBucketSize(int bucket) {
+    return bucketStarts[bucket + 1] - bucketStarts[bucket];
+  }
+
+  @Override
+  public int getTextId(int bucket, int index) {
+    if (index < 0 || index >= getBucketSize(bucket)) {
+      throw new IndexOutOfBoundsException("No passage " + index + " in bucket " + bucket);
+    }
+    return this.index.getInt(bucketIds + (bucketStarts[bucket] + index) * Integer.BYTES);
+  }
+
+  @Override
+  public TextToType getText(int textId) {
+    if (textId < 0 || textId >= count) {
+      throw new IndexOutOfBoundsException("No passage " + textId);
+    }
+    synchronized (cache) {
+      TextToType text = cache.get(textId);
+      if (text != null) {
+        return text;
+      }
+    }
+    TextToType text = new TextToType(textId, readPassage(textId));
+    synchronized (cache) {
+      // Keep the instance another thread may have cached meanwhile
+      TextToType cached = cache.putIfAbsent(textId, text);
+      return cached != null ? cached : text;
+    }
+  }
+
+  private String readPassage(int textId) {
+    int entry = textId * CorpusPack.ENTRY_SIZE;
+    long offset = index.getLong(entry);
+    int length = index.getInt(entry + 8);
+    if (length < 0 || offset < dataStart || offset + length > fileSize) {
+      throw new IllegalStateException("Corrupt index entry of passage " + textId);
+    }
+
+    byte[] bytes = new byte[length];
+    int copied = 0;
+    while (copied < length) {
+      long position = offset - dataStart + copied;
+      ByteBuffer segment = segment((int) (position / SEGMENT_SIZE)).duplicate();
+      segment.position((int) (position % SEGMENT_SIZE));
+      int chunk = Math.min(length - copied, segment.remaining());
+      segment.get(bytes, copied, chunk);
+      copied += chunk;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private MappedByteBuffer segment(int number) {
+    MappedByteBuffer segment = segments.get(number);
+    if (segment == null) {
+      long start = dataStart + number * SEGMENT_SIZE;
+      try {
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(SEGMENT_SIZE, fileSize - start));
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot map corpus pack", e);
+      }
+      // A mapping created concurrently is equivalent, the first one is kept
+      if (!segments.compareAndSet(number, null, segment)) {
+        segment = segments.get(number);
+      }
+    }
+    return segment;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,68 @@
+package server.model;
+
+/**
+ * Difficulty classes of the texts. Texts are harder with more characters that are not lower case
+ * letters, like capitals, digits and punctuation, and with longer words.
+ */
+public enum Difficulty {
+  EASY,
+  NORMAL,
+  HARD;
+
+  private static final int NORMAL_SCORE = 60;
+  private static final int HARD_SCORE = 120;
+  // Score added per character the average word is longer than four characters
+  private static final int WORD_LENGTH_WEIGHT = 25;
+
+  /**
+   * Classifies a text.
+   *
+   * @param text the text.
+   * @param wordCount the number of words of the text.
+   * @return the difficulty class.
+   */
+  public static Difficulty of(String text, int wordCount) {
+    int wordLengthTimesTen = 10 * (text.length() - wordCount + 1) / Math.max(wordCount, 1);
+    int score = rarePermille(text) + WORD_LENGTH_WEIGHT * (wordLengthTimesTen - 40) / 10;
+    if (score < NORMAL_SCORE) {
+      return EASY;
+    }
+    return score < HARD_SCORE ? NORMAL : HARD;
+  }
+
+  /**
+   * Computes how many characters of a text are harder to type than lower case letters and
+   * spaces, e.g. capitals, digits and punctuation.
+   *
+   * @param text the text.
+   * @return the share of such characters in per mille.
+   */
+  public static int rarePermille(String text) {
+    if (text.isEmpty()) {
+      return 0;
+    }
+    int rare = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c != ' ' && (c < 'a' || c > 'z')) {
+        rare++;
+      }
+    }
+    return (int) (1000L * rare / text.length());
+  }
+
+  /**
+   * Finds the difficulty class of the given name, ignoring case.
+   *
+   * @param name the name, e.g. "hard", may be {@code null}.
+   * @return the difficulty class or {@code null} if the name is unknown.
+   */
+  public static Difficulty parse(String name) {
+    for (Difficulty difficulty : values()) {
+      if (difficulty.name().equalsIgnoreCase(name)) {
+        return difficulty;
+      }
+    }
+    return null;
+  }
+}
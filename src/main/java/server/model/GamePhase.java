@@ -0,0 +1,16 @@
+package server.model;
+
+/**
+ * The phases a game goes through. A game only moves forward, from {@link #LOBBY} to
+ * {@link #FINISHED}.
+ */
+public enum GamePhase {
+  /** Players join and wait for someone to start the countdown. */
+  LOBBY,
+  /** The countdown is running. */
+  COUNTDOWN,
+  /** The countdown reached zero, players are typing. */
+  RACING,
+  /** A player has typed the whole text. */
+  FINISHED
+}
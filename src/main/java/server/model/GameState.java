@@ -1,17 +1,22 @@
 package server.model;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 
 /**
- * Saves all the important information of the game.
+ * Saves all the important information of the game. Instances are immutable snapshots, changes
+ * create a copy with the next version, so a snapshot can be read and serialized by any thread
+ * without locking.
  */
 public class GameState {
 
   private final Map<String, PlayerState> playerStateMap;
   private final TextToType textToType;
   private final int countdownInSeconds;
+  // Only meaningful on the server, not sent to the clients
+  private final transient long version;
 
   /**
    * Creates a gameState with a chosen text.
@@ -19,15 +24,98 @@ public class GameState {
    * @param text a text which will be used in the game, needs to be a String.
    */
   public GameState(String text) {
-    textToType = new TextToType(text);
-    playerStateMap = new HashMap<>();
+    this(new TextToType(text));
+  }
+
+  /**
+   * Creates a gameState with a chosen text.
+   *
+   * @param textToType the text which will be used in the game, may be shared with other games.
+   */
+  public GameState(TextToType textToType) {
+    this.textToType = textToType;
+    playerStateMap = Collections.emptyMap();
     countdownInSeconds = 10;
+    version = 0;
+  }
+
+  /**
+   * Creates a gameState with the given content, e.g. after receiving it.
+   *
+   * @param playerStateMap the players of the game.
+   * @param textToType the text of the game.
+   * @param countdownInSeconds the length of the countdown.
+   */
+  public GameState(Map<String, PlayerState> playerStateMap, TextToType textToType,
+      int countdownInSeconds) {
+    this.playerStateMap = Collections.unmodifiableMap(new HashMap<>(playerStateMap));
+    this.textToType = textToType;
+    this.countdownInSeconds = countdownInSeconds;
+    version = 0;
+  }
+
+  /**
+   * Creates a copy of the given state with other players.
+   *
+   * @param base the state to copy the text and countdown from.
+   * @param playerStateMap the players, the map must not be changed afterwards.
+   * @param version the version of the new state.
+   */
+  GameState(GameState base, Map<String, PlayerState> playerStateMap, long version) {
+    textToType = base.textToType;
+    countdownInSeconds = base.countdownInSeconds;
+    this.playerStateMap = Collections.unmodifiableMap(playerStateMap);
+    this.version = version;
+  }
+
+  private GameState(GameState base, TextToType textToType) {
+    this.textToType = textToType;
+    countdownInSeconds = base.countdownInSeconds;
+    playerStateMap = base.playerStateMap;
+    version = base.version;
+  }
+
+  /**
+   * Returns a copy of this state with another text, e.g. without the text for clients that have it
+   * cached. The version stays the same.
+   *
+   * @param textToType the text, may be {@code null}.
+   * @return the copy.
+   */
+  public GameState withText(TextToType textToType) {
+    return new GameState(this, textToType);
+  }
+
+  /**
+   * Returns a copy of this state in which the given player has the given state. This state is
+   * not changed, so readers of it never see a half applied update.
+   *
+   * @param playerName name of the player, added if not yet in the game.
+   * @param playerState the new state of the player.
+   * @return the updated copy.
+   */
+  public GameState withPlayerState(String playerName, PlayerState playerState) {
+    Map<String, PlayerState> players = new HashMap<>(playerStateMap);
+    players.put(playerName, playerState);
+    return new GameState(this, players, version + 1);
+  }
+
+  /**
+   * Returns a copy of this state without the given player. This state is not changed.
+   *
+   * @param playerName name of the player.
+   * @return the updated copy.
+   */
+  public GameState withoutPlayer(String playerName) {
+    Map<String, PlayerState> players = new HashMap<>(playerStateMap);
+    players.remove(playerName);
+    return new GameState(this, players, version + 1);
   }
 
   /**
    * Return the current map of player.
    *
-   * @return the map of player.
+   * @return the unmodifiable map of player.
    */
   public Map<String, PlayerState> getPlayerStateMap() {
     return playerStateMap;
@@ -47,4 +135,14 @@ public class GameState {
     return countdownInSeconds;
   }
 
+  /**
+   * Returns the version of this snapshot. Every copy made by {@link #withPlayerState} or
+   * {@link #withoutPlayer} has the next version.
+   *
+   * @return the version, 0 for a new or received state.
+   */
+  public long getVersion() {
+    return version;
+  }
+
 }
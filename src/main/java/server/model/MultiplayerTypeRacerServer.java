@@ -1,32 +1,98 @@
 package server.model;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Represents a typeracer game.
  */
 public class MultiplayerTypeRacerServer {
+  private static final int INITIAL_SLOTS = 4;
 
   private final int id;
-  private final GameState state;
-  private long startTime;
+  private final TextToType textToType;
+  private volatile long startTime;
+  private volatile GamePhase phase;
+  private volatile long lastChangeMillis;
+
+  // Every player owns a slot, the index into the arrays below. Slots of players who left are
+  // reused by players joining later.
+  private String[] playerNames;
+  private int[] wordProgress;
+  private int[] wpm;
+  private int[] freeSlots;
+  private int freeSlotCount;
+  private int usedSlotCount;
+  private int numPlayers;
+
+  private long version;
+  // Built from the slots when requested and kept until the next change
+  private GameState snapshot;
 
   /**
-   * Create a new game with the given id.
+   * Create a new game with the given id and a random text.
    *
    * @param id The game id.
    */
   public MultiplayerTypeRacerServer(int id) {
-    state = new GameState(new TextDatabase().getText());
+    this(id, TextDatabase.getDefault().getRandomText());
+  }
+
+  /**
+   * Create a new game with the given id and text.
+   *
+   * @param id The game id.
+   * @param textToType The text to type, usually shared with other games.
+   */
+  public MultiplayerTypeRacerServer(int id, TextToType textToType) {
+    GameState initialState = new GameState(textToType);
+    this.textToType = textToType;
+    snapshot = initialState;
     this.id = id;
+    phase = GamePhase.LOBBY;
+    lastChangeMillis = System.currentTimeMillis();
+    playerNames = new String[INITIAL_SLOTS];
+    wordProgress = new int[INITIAL_SLOTS];
+    wpm = new int[INITIAL_SLOTS];
+    freeSlots = new int[INITIAL_SLOTS];
   }
 
   /**
-   * Updates the game progress of a specific player.
+   * Updates the game progress of a specific player. The method does nothing if the slot is not in
+   * use.
    *
-   * @param username name of the player.
+   * @param slot the slot of the player.
    * @param wpm the to be updated wpm progress.
    */
-  public void updatePlayerState(String username, int wpm) {
-    state.getPlayerStateMap().get(username).updateProgress(wpm);
+  public synchronized void updatePlayerState(int slot, int wpm) {
+    if (playerNames[slot] == null) {
+      // The player has left
+      return;
+    }
+    wordProgress[slot]++;
+    this.wpm[slot] = wpm;
+    changed();
+  }
+
+  /**
+   * Returns the index of the last word the player finished.
+   *
+   * @param slot the slot of the player.
+   * @return the word progress, -1 if no word is finished yet.
+   */
+  public synchronized int getWordProgress(int slot) {
+    return wordProgress[slot];
+  }
+
+  /**
+   * Returns the last wpm of the player.
+   *
+   * @param slot the slot of the player.
+   * @return the wpm.
+   */
+  public synchronized int getWpm(int slot) {
+    return wpm[slot];
   }
 
   /**
@@ -36,7 +102,7 @@ public class MultiplayerTypeRacerServer {
    */
   public long getCountdownValue() {
     long secondsPassed = (System.currentTimeMillis() - startTime) / 1000;
-    return state.getCountdownInSeconds() - secondsPassed;
+    return getState().getCountdownInSeconds() - secondsPassed;
   }
 
 
@@ -44,24 +110,49 @@ public class MultiplayerTypeRacerServer {
    * Adds a new player with the given name to the game.
    *
    * @param playername the name of the player.
+   * @return the slot of the player, used to refer to the player later on.
    */
-  public synchronized void addNewPlayer(final String playername) {
-    state.getPlayerStateMap().put(playername, new PlayerState());
+  public synchronized int addNewPlayer(final String playername) {
+    int slot;
+    if (freeSlotCount > 0) {
+      slot = freeSlots[--freeSlotCount];
+    } else {
+      if (usedSlotCount == playerNames.length) {
+        int capacity = 2 * usedSlotCount;
+        playerNames = Arrays.copyOf(playerNames, capacity);
+        wordProgress = Arrays.copyOf(wordProgress, capacity);
+        wpm = Arrays.copyOf(wpm, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+      }
+      slot = usedSlotCount++;
+    }
+    playerNames[slot] = playername;
+    wordProgress[slot] = -1;
+    wpm[slot] = 0;
+    numPlayers++;
+    changed();
+    return slot;
   }
 
   /**
-   * Removes the player with the given name. The current player is updated if the given player was
-   * the current one. The method does nothing if no player with the given name exists in the game.
+   * Removes the player in the given slot. The method does nothing if the slot is not in use.
    *
-   * @param playername the name of the player.
+   * @param slot the slot of the player.
    */
-  public synchronized void removePlayer(final String playername) {
-    if (state.getPlayerStateMap().containsKey(playername)) {
-      state.getPlayerStateMap().remove(playername);
-    } else {
+  public synchronized void removePlayer(final int slot) {
+    if (playerNames[slot] == null) {
       // Possibly the player has already been removed
       return;
     }
+    playerNames[slot] = null;
+    freeSlots[freeSlotCount++] = slot;
+    numPlayers--;
+    changed();
+  }
+
+  private void changed() {
+    version++;
+    lastChangeMillis = System.currentTimeMillis();
   }
 
   /**
@@ -70,7 +161,7 @@ public class MultiplayerTypeRacerServer {
    * @return the size as int.
    */
   public synchronized int getNumPlayers() {
-    return state.getPlayerStateMap().size();
+    return numPlayers;
   }
 
   /**
@@ -83,12 +174,31 @@ public class MultiplayerTypeRacerServer {
   }
 
   /**
-   * Returns the current state of the game.
+   * Returns the current state of the game. The returned snapshot never changes, later changes of
+   * the game are published as new snapshots.
    *
    * @return the state as a Gamestate class.
    */
-  public GameState getState() {
-    return state;
+  public synchronized GameState getState() {
+    if (snapshot.getVersion() != version) {
+      Map<String, PlayerState> players = new HashMap<>();
+      for (int slot = 0; slot < usedSlotCount; slot++) {
+        if (playerNames[slot] != null) {
+          players.put(playerNames[slot], new PlayerState(wordProgress[slot], wpm[slot]));
+        }
+      }
+      snapshot = new GameState(snapshot, players, version);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the text of the game.
+   *
+   * @return the text.
+   */
+  public TextToType getTextToType() {
+    return textToType;
   }
 
   /**
@@ -96,5 +206,55 @@ public class MultiplayerTypeRacerServer {
    */
   public void prepareCountdown() {
     startTime = System.currentTimeMillis();
+    changePhase(GamePhase.COUNTDOWN);
+  }
+
+  /**
+   * Tells whether the countdown has already been started.
+   *
+   * @return true if {@link #prepareCountdown()} has been called.
+   */
+  public boolean isCountdownStarted() {
+    return phase != GamePhase.LOBBY;
+  }
+
+  /**
+   * Marks the end of the countdown, the players start typing.
+   */
+  public void startRace() {
+    changePhase(GamePhase.RACING);
+  }
+
+  /**
+   * Marks the game as finished because a player has typed the whole text.
+   */
+  public void finish() {
+    changePhase(GamePhase.FINISHED);
+  }
+
+  private void changePhase(GamePhase next) {
+    if (phase.compareTo(next) < 0) {
+      phase = next;
+    }
+    lastChangeMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the current phase of the game.
+   *
+   * @return the phase.
+   */
+  public GamePhase getPhase() {
+    return phase;
+  }
+
+  /**
+   * Returns when the game changed the last time, i.e. a player joined, left or typed a word or the
+   * phase changed.
+   *
+   * @return the time in milliseconds since the epoch.
+   */
+  public long getLastChangeMillis() {
+    return lastChangeMillis;
   }
 }
@@ -0,0 +1,41 @@
+package server.model;
+
+/**
+ * Length classes of the texts, by number of words.
+ */
+public enum PassageLength {
+  SHORT,
+  MEDIUM,
+  LONG;
+
+  private static final int MEDIUM_WORDS = 25;
+  private static final int LONG_WORDS = 50;
+
+  /**
+   * Classifies a text by its number of words.
+   *
+   * @param wordCount the number of words.
+   * @return the length class.
+   */
+  public static PassageLength of(int wordCount) {
+    if (wordCount < MEDIUM_WORDS) {
+      return SHORT;
+    }
+    return wordCount < LONG_WORDS ? MEDIUM : LONG;
+  }
+
+  /**
+   * Finds the length class of the given name, ignoring case.
+   *
+   * @param name the name, e.g. "short", may be {@code null}.
+   * @return the length class or {@code null} if the name is unknown.
+   */
+  public static PassageLength parse(String name) {
+    for (PassageLength length : values()) {
+      if (length.name().equalsIgnoreCase(name)) {
+        return length;
+      }
+    }
+    return null;
+  }
+}
@@ -3,16 +3,27 @@ package server.model;
 import java.io.Serializable;
 
 /**
- * Represent one player in the game.
+ * Represent one player in the game. Instances are immutable.
  */
 public class PlayerState implements Serializable {
   private static final long serialVersionUID = 1L;
 
-  private int wpm;
-  private int wordProgress;
+  private final int wpm;
+  private final int wordProgress;
 
   public PlayerState() {
-    wordProgress = -1;
+    this(-1, 0);
+  }
+
+  /**
+   * Creates a player state with the given progress.
+   *
+   * @param wordProgress the index of the last finished word, -1 if none.
+   * @param wpm the wpm of the player.
+   */
+  public PlayerState(int wordProgress, int wpm) {
+    this.wordProgress = wordProgress;
+    this.wpm = wpm;
   }
 
   /**
@@ -32,15 +43,4 @@ public class PlayerState implements Serializable {
   public int getWpm() {
     return wpm;
   }
-
-  /**
-   * Updates the progress of the player.
-   *
-   * @param newWpmEntry is the wpm
-   */
-  public void updateProgress(int newWpmEntry) {
-    wordProgress++;
-    wpm = newWpmEntry;
-  }
-
 }
@@ -0,0 +1,65 @@
+package server.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A collection of texts the games are played on. Texts are identified by their index. Besides, the
+ * texts are sorted into buckets by {@link PassageLength} and {@link Difficulty}, so a text of a
+ * requested kind is found without looking at the texts.
+ */
+public interface TextCorpus {
+  /** Number of buckets, one per combination of length and difficulty. */
+  int BUCKET_COUNT = PassageLength.values().length * Difficulty.values().length;
+
+  /**
+   * Returns the bucket of texts of the given kind.
+   *
+   * @param length the length class.
+   * @param difficulty the difficulty class.
+   * @return the bucket, from 0 to {@link #BUCKET_COUNT} - 1.
+   */
+  static int bucket(PassageLength length, Difficulty difficulty) {
+    return length.ordinal() * Difficulty.values().length + difficulty.ordinal();
+  }
+
+  /**
+   * Returns how many texts a bucket holds.
+   *
+   * @param bucket the bucket, see {@link #bucket(PassageLength, Difficulty)}.
+   * @return the number of texts, possibly 0.
+   */
+  int getBucketSize(int bucket);
+
+  /**
+   * Returns the id of a text in a bucket.
+   *
+   * @param bucket the bucket, see {@link #bucket(PassageLength, Difficulty)}.
+   * @param index the index in the bucket, from 0 to {@link #getBucketSize(int)} - 1.
+   * @return the text id.
+   */
+  int getTextId(int bucket, int index);
+
+  /**
+   * Returns how many texts the corpus holds.
+   *
+   * @return the number of texts, at least one.
+   */
+  int size();
+
+  /**
+   * Returns the text with the given id.
+   *
+   * @param textId the id, from 0 to {@link #size()} - 1.
+   * @return the text.
+   */
+  TextToType getText(int textId);
+
+  /**
+   * Returns a random text out of the corpus.
+   *
+   * @return the text.
+   */
+  default TextToType getRandomText() {
+    return getText(ThreadLocalRandom.current().nextInt(size()));
+  }
+}
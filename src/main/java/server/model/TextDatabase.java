@@ -7,43 +7,92 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
- * Represents a database for the game.
+ * Represents a database for the game. The texts are read and split into words once, all games
+ * playing the same text share its {@link TextToType}.
  */
-public class TextDatabase {
-  private static List<String> list;
-
+public class TextDatabase implements TextCorpus {
+  private final TextToType[] texts;
+  private final int[][] buckets;
 
+  /**
+   * Reads the texts bundled with the game, one per line. Prefer {@link #getDefault()}, which reads
+   * them only once.
+   */
   public TextDatabase() {
-    bufferReaderToArrayList();
-  }
-
-  private void bufferReaderToArrayList() {
-
+    List<TextToType> list = new ArrayList<>();
     InputStream input = getClass().getResourceAsStream("/story.txt");
-    list = new ArrayList<String>();
-    try {
-      final BufferedReader in =
-          new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    try (BufferedReader in =
+        new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
       String line;
       while ((line = in.readLine()) != null) {
-        list.add(line);
+        list.add(new TextToType(list.size(), line));
       }
-      in.close();
     } catch (final IOException e) {
       e.printStackTrace();
     }
+    texts = list.toArray(new TextToType[0]);
+
+    int[] sizes = new int[BUCKET_COUNT];
+    int[] textBuckets = new int[texts.length];
+    for (int i = 0; i < texts.length; i++) {
+      textBuckets[i] = bucketOf(texts[i]);
+      sizes[textBuckets[i]]++;
+    }
+    buckets = new int[BUCKET_COUNT][];
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      buckets[bucket] = new int[sizes[bucket]];
+      sizes[bucket] = 0;
+    }
+    for (int i = 0; i < texts.length; i++) {
+      buckets[textBuckets[i]][sizes[textBuckets[i]]++] = i;
+    }
   }
 
+  private static int bucketOf(TextToType text) {
+    int wordCount = text.textLength();
+    return TextCorpus.bucket(PassageLength.of(wordCount),
+        Difficulty.of(text.getFullText(), wordCount));
+  }
+
+  private static class DefaultHolder {
+    private static final TextDatabase INSTANCE = new TextDatabase();
+  }
+
+  /**
+   * Returns the database of the texts bundled with the game, read on first use.
+   *
+   * @return the shared database.
+   */
+  public static TextDatabase getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  @Override
+  public int size() {
+    return texts.length;
+  }
+
+  @Override
+  public TextToType getText(int textId) {
+    return texts[textId];
+  }
+
+  @Override
+  public int getBucketSize(int bucket) {
+    return buckets[bucket].length;
+  }
+
+  @Override
+  public int getTextId(int bucket, int index) {
+    return buckets[bucket][index];
+  }
 
   /**
    * Returns a random Text out of the database.
    */
   public String getText() {
-    int guessedIndex = new Random().nextInt(list.size());
-    String text = list.get(guessedIndex);
-    return text;
+    return getRandomText().getFullText();
   }
 }
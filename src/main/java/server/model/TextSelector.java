@@ -0,0 +1,109 @@
+package server.model;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the texts of new games out of the buckets of a {@link TextCorpus}. A pick only looks at
+ * the bucket sizes, the texts themselves are not touched until the chosen one is loaded.
+ *
+ * <p>The selector remembers the texts picked last and tries a few times to avoid them, so players
+ * starting game after game rarely see the same text twice in a row.
+ */
+public class TextSelector {
+  private static final int MAX_RECENT = 64;
+  private static final int ATTEMPTS = 4;
+
+  private final TextCorpus texts;
+  private final int recentLimit;
+  private final ArrayDeque<Integer> recent = new ArrayDeque<>();
+  private final Set<Integer> recentIds = new HashSet<>();
+
+  /**
+   * Creates a selector for the given corpus.
+   *
+   * @param texts the corpus.
+   */
+  public TextSelector(TextCorpus texts) {
+    this.texts = texts;
+    // Small corpora would otherwise run out of texts that are not recent
+    recentLimit = Math.min(MAX_RECENT, texts.size() / 2);
+  }
+
+  /**
+   * Picks a random text of the given kind. If the corpus has no such text, the difficulty and then
+   * the length are ignored.
+   *
+   * @param length the length class or {@code null} for any.
+   * @param difficulty the difficulty class or {@code null} for any.
+   * @return the text.
+   * @throws IllegalStateException if the corpus is empty.
+   */
+  public TextToType select(PassageLength length, Difficulty difficulty) {
+    int matching = countMatching(length, difficulty);
+    if (matching == 0) {
+      if (difficulty != null) {
+        return select(length, null);
+      }
+      if (length != null) {
+        return select(null, null);
+      }
+      throw new IllegalStateException("The corpus holds no texts");
+    }
+
+    int textId = 0;
+    for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+      textId = pick(length, difficulty, ThreadLocalRandom.current().nextInt(matching));
+      if (!isRecent(textId)) {
+        break;
+      }
+    }
+    remember(textId);
+    return texts.getText(textId);
+  }
+
+  private int countMatching(PassageLength length, Difficulty difficulty) {
+    int matching = 0;
+    for (int bucket = 0; bucket < TextCorpus.BUCKET_COUNT; bucket++) {
+      if (matches(bucket, length, difficulty)) {
+        matching += texts.getBucketSize(bucket);
+      }
+    }
+    return matching;
+  }
+
+  private int pick(PassageLength length, Difficulty difficulty, int index) {
+    for (int bucket = 0; bucket < TextCorpus.BUCKET_COUNT; bucket++) {
+      if (matches(bucket, length, difficulty)) {
+        int size = texts.getBucketSize(bucket);
+        if (index < size) {
+          return texts.getTextId(bucket, index);
+        }
+        index -= size;
+      }
+    }
+    throw new IllegalStateException("Bucket sizes changed");
+  }
+
+  private static boolean matches(int bucket, PassageLength length, Difficulty difficulty) {
+    int difficulties = Difficulty.values().length;
+    return (length == null || bucket / difficulties == length.ordinal())
+        && (difficulty == null || bucket % difficulties == difficulty.ordinal());
+  }
+
+  private synchronized boolean isRecent(int textId) {
+    return recentIds.contains(textId);
+  }
+
+  private synchronized void remember(int textId) {
+    if (recentLimit == 0 || !recentIds.add(textId)) {
+      return;
+    }
+    recent.addLast(textId);
+    if (recent.size() > recentLimit) {
+      recentIds.remove(recent.removeFirst());
+    }
+  }
+}
@@ -1,12 +1,15 @@
 package server.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 
 /**
- * Represent the text which needs to be typed.
+ * Represent the text which needs to be typed. Instances are immutable, so one instance can be
+ * shared by all games playing the text.
  */
 public class TextToType implements Serializable {
 
@@ -14,6 +17,10 @@ public class TextToType implements Serializable {
 
   private final String fullText;
   private final List<String> words;
+  // The server looks texts up by id, the JSON sent to clients leaves it out
+  private final transient int textId;
+  // Computed when first needed, the same text always gets the same hash
+  private transient volatile String hash;
 
   /**
    * Takes a text and formats it so it can be used in the game.
@@ -21,13 +28,64 @@ public class TextToType implements Serializable {
    * @param text the text which will be used for the game.
    */
   public TextToType(String text) {
+    this(-1, text);
+  }
+
+  /**
+   * Takes a text of the {@link TextDatabase} and formats it so it can be used in the game.
+   *
+   * @param textId the id of the text in the database.
+   * @param text the text which will be used for the game.
+   */
+  public TextToType(int textId, String text) {
+    this.textId = textId;
     fullText = text;
-    words = new ArrayList<>();
-    String[] textArray = text.split(" ");
-    for (String word : textArray) {
-      words.add(word);
+    words = List.of(text.split(" "));
+  }
+
+  /**
+   * Returns the id of the text in the {@link TextDatabase}.
+   *
+   * @return the id, -1 if the text is not from the database.
+   */
+  public int getTextId() {
+    return textId;
+  }
+
+  /**
+   * Returns the hash of the text, which identifies it independent of its id, e.g. in caches.
+   *
+   * @return the hash, see {@link #hashOf(String)}.
+   */
+  public String getHash() {
+    String result = hash;
+    if (result == null) {
+      result = hashOf(fullText);
+      hash = result;
     }
+    return result;
+  }
 
+  /**
+   * Computes the hash of a text: the first 128 bits of its SHA-256 digest in lower case hex.
+   *
+   * @param text the text.
+   * @return the hash, 32 characters long.
+   */
+  public static String hashOf(String text) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256
+      throw new AssertionError(e);
+    }
+    StringBuilder hex = new StringBuilder(32);
+    for (int i = 0; i < 16; i++) {
+      hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(digest[i] & 0xF, 16));
+    }
+    return hex.toString();
   }
 
   /**
@@ -0,0 +1,41 @@
+package client.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.model.TextToType;
+
+/** Test class for the text cache of the client. */
+public class TextCacheTest {
+
+  @Test
+  @DisplayName("cached texts should be found by hash after a restart, damaged files should not")
+  public void testPersistTexts() throws IOException {
+    Path directory = Files.createTempDirectory("texts");
+    try {
+      TextToType text = new TextToType("the quick brown fox");
+      new TextCache(directory).put(text);
+
+      TextCache restarted = new TextCache(directory);
+      assertEquals("the quick brown fox", restarted.get(text.getHash()).getFullText());
+      assertNull(restarted.get(TextToType.hashOf("jumps over the lazy dog")));
+      assertNull(restarted.get("../../etc/passwd"));
+
+      Files.writeString(directory.resolve(text.getHash() + ".txt"), "the quick brown dog");
+      assertNull(new TextCache(directory).get(text.getHash()));
+    } finally {
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package client.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.model.TextToType;
+
+/** Test class for the matcher checking the input while it is typed. */
+public class WordMatcherTest {
+
+  @Test
+  @DisplayName("the input should be checked per char and complete with the last correct char")
+  public void testMatchWhileTyping() {
+    WordMatcher matcher = new WordMatcher(new TextToType("fox jumps"));
+    assertFalse(matcher.update("f", 0));
+    assertFalse(matcher.update("fi", 1));
+    assertEquals(1, matcher.getCorrectLength());
+    assertEquals(2, matcher.getTypedLength());
+
+    assertFalse(matcher.update("f", 1));
+    assertFalse(matcher.update("fo", 1));
+    assertTrue(matcher.update("fox", 2));
+    assertTrue(matcher.isMistyped());
+
+    matcher.nextWord();
+    assertEquals(1, matcher.getWordIndex());
+    assertFalse(matcher.isMistyped());
+    assertFalse(matcher.update("jumpx", 0));
+    assertEquals(4, matcher.getCorrectLength());
+    assertTrue(matcher.update("jumps", 4));
+
+    matcher.nextWord();
+    assertTrue(matcher.isFinished());
+    assertFalse(matcher.update("x", 0));
+  }
+}
@@ -0,0 +1,82 @@
+package communication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import communication.messages.NewGameRequest;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.UpdateCountdownNotification;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Test class for the binary wire protocol. */
+public class BinaryCodecTest {
+
+  @Test
+  @DisplayName("compact and JSON frames should decode to the encoded messages")
+  public void testRoundTrip() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    EncodedMessage.of(new PlayerFinishedWord("Zo\u00eb", 7, 55)).writeTo(stream, true);
+    EncodedMessage.of(new UpdateCountdownNotification(-1)).writeTo(stream, true);
+    EncodedMessage.of(new NewGameRequest("Alice")).writeTo(stream, true);
+    EncodedMessage.of(new ProgressUpdateNotification(new String[] {"Alice", "Bob"},
+        new int[] {3, -1}, new int[] {48, 0})).writeTo(stream, true);
+    InputStream input = new ByteArrayInputStream(stream.toByteArray());
+
+    PlayerFinishedWord progress = (PlayerFinishedWord) BinaryCodec.readFrame(input);
+    assertEquals("Zo\u00eb", progress.getPlayerName());
+    assertEquals(7, progress.getWordProgress());
+    assertEquals(55, progress.getWpm());
+    assertEquals(-1, ((UpdateCountdownNotification) BinaryCodec.readFrame(input)).getCountdown());
+    assertEquals("Alice", ((NewGameRequest) BinaryCodec.readFrame(input)).getPlayerName());
+    ProgressUpdateNotification update = (ProgressUpdateNotification) BinaryCodec.readFrame(input);
+    assertEquals(2, update.getPlayerCount());
+    assertEquals("Bob", update.getPlayerName(1));
+    assertEquals(3, update.getWordProgress(0));
+    assertEquals(-1, update.getWordProgress(1));
+    assertEquals(48, update.getWpm(0));
+  }
+
+  @Test
+  @DisplayName("missing player names should survive a round trip like in JSON")
+  public void testNullName() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    EncodedMessage.of(new PlayerFinishedWord(null, 2, 30)).writeTo(stream, true);
+    EncodedMessage.of(new ProgressUpdateNotification(new String[] {null, ""},
+        new int[] {1, 2}, new int[] {40, 50})).writeTo(stream, true);
+    InputStream input = new ByteArrayInputStream(stream.toByteArray());
+
+    PlayerFinishedWord progress = (PlayerFinishedWord) BinaryCodec.readFrame(input);
+    assertNull(progress.getPlayerName());
+    assertEquals(2, progress.getWordProgress());
+    ProgressUpdateNotification update = (ProgressUpdateNotification) BinaryCodec.readFrame(input);
+    assertNull(update.getPlayerName(0));
+    assertEquals("", update.getPlayerName(1));
+    assertEquals(50, update.getWpm(1));
+  }
+
+  @Test
+  @DisplayName("progress frames should be much smaller than their JSON")
+  public void testCompactSize() {
+    EncodedMessage message = EncodedMessage.of(new PlayerFinishedWord("Alice", 12, 64));
+    int frame = message.newBuffer(true).remaining();
+    assertTrue(frame < message.newBuffer(false).remaining() / 4);
+  }
+
+  @Test
+  @DisplayName("truncated and unknown frames should be rejected")
+  public void testMalformedFrames() {
+    assertThrows(IOException.class,
+        () -> BinaryCodec.decodePayload(ByteBuffer.wrap(new byte[] {2, 10, 'A'})));
+    assertThrows(IOException.class,
+        () -> BinaryCodec.decodePayload(ByteBuffer.wrap(new byte[] {42})));
+  }
+}
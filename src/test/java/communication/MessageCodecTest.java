@@ -0,0 +1,84 @@
+package communication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.gson.Gson;
+import communication.messages.FinishedWordRequest;
+import communication.messages.JoinGameRequest;
+import communication.messages.JoinGameResponse;
+import communication.messages.NewGameRequest;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.StartGameRequest;
+import communication.messages.UpdateCountdownNotification;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.model.GameState;
+import server.model.PlayerState;
+
+/** Test class for the streaming message codec. */
+public class MessageCodecTest {
+
+  private final Gson gson = new Gson();
+
+  private static String encode(Object message) {
+    return new String(MessageCodec.encodeLine(message), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  @DisplayName("encoded messages should be the same JSON Gson produces")
+  public void testEncodeMatchesGson() {
+    Object[] messages = {
+        new NewGameRequest("Alice"),
+        new NewGameRequest(null),
+        new JoinGameRequest(4711, "Bob"),
+        new StartGameRequest(),
+        new FinishedWordRequest(42),
+        new UpdateCountdownNotification(3),
+        new PlayerFinishedWord("Alice", 7, 55),
+        new ProgressUpdateNotification(new String[] {"Alice", "Bob"}, new int[] {7, 3},
+            new int[] {55, 80}),
+    };
+    for (Object message : messages) {
+      assertEquals(gson.toJson(message) + "\n", encode(message));
+    }
+  }
+
+  @Test
+  @DisplayName("the game state in a join response should be encoded like Gson does")
+  public void testEncodeGameState() {
+    GameState state = new GameState("the quick brown fox")
+        .withPlayerState("Alice", new PlayerState(2, 30));
+    JoinGameResponse response = new JoinGameResponse(12, "Alice", state);
+
+    String json = encode(response);
+    assertEquals(gson.toJson(response) + "\n", json);
+
+    JoinGameResponse decoded = (JoinGameResponse) MessageCodec.decode(json);
+    assertEquals(12, decoded.getGameId());
+    assertEquals("brown", decoded.getCurrentGameState().getTextToType().getWord(2));
+    PlayerState alice = decoded.getCurrentGameState().getPlayerStateMap().get("Alice");
+    assertEquals(2, alice.getWordProgress());
+    assertEquals(30, alice.getWpm());
+  }
+
+  @Test
+  @DisplayName("messages written by Gson should be decoded, whatever the field order")
+  public void testDecodeGsonOutput() {
+    String json = "{\"wordProgress\":3,\"playerName\":\"Bob\",\"wpm\":80,"
+        + "\"messageType\":\"PlayerFinishedWord\"}";
+
+    PlayerFinishedWord message = (PlayerFinishedWord) MessageCodec.decode(json);
+    assertEquals("Bob", message.getPlayerName());
+    assertEquals(3, message.getWordProgress());
+    assertEquals(80, message.getWpm());
+  }
+
+  @Test
+  @DisplayName("unknown message types should decode to null")
+  public void testDecodeUnknownType() {
+    assertNull(MessageCodec.decode("{\"messageType\":\"Unknown\",\"value\":1}"));
+  }
+}
@@ -0,0 +1,56 @@
+package communication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import communication.messages.JoinGameRequest;
+import communication.messages.NewGameRequest;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Test class for the routing of received messages. */
+public class MessageRegistryTest {
+
+  private MessageRegistry<List<Object>> registry;
+  private List<Object> received;
+
+  @BeforeEach
+  public void setUp() {
+    registry = new MessageRegistry<List<Object>>()
+        .register(NewGameRequest.class, List::add)
+        .register(JoinGameRequest.class, List::add);
+    received = new ArrayList<>();
+  }
+
+  @Test
+  @DisplayName("messages should be routed by their type, not by their content")
+  public void testDispatchIgnoresContent() {
+    String json = "{\"messageType\":\"NewGameRequest\",\"playerName\":\"JoinGameRequest\"}";
+
+    assertTrue(registry.dispatch(received, MessageCodec.decode(json)));
+    assertEquals(1, received.size());
+    NewGameRequest request = (NewGameRequest) received.get(0);
+    assertEquals("JoinGameRequest", request.getPlayerName());
+  }
+
+  @Test
+  @DisplayName("the message type should also be found if it is not the first field")
+  public void testDispatchWithLateMessageType() {
+    String json = "{\"gameId\":42,\"playerName\":\"Bob\",\"messageType\":\"JoinGameRequest\"}";
+
+    assertTrue(registry.dispatch(received, MessageCodec.decode(json)));
+    assertEquals(42, ((JoinGameRequest) received.get(0)).getGameId());
+  }
+
+  @Test
+  @DisplayName("unknown message types should not be dispatched")
+  public void testDispatchUnknownType() {
+    Object message = MessageCodec.decode("{\"messageType\":\"StartGameRequest\"}");
+    assertFalse(registry.dispatch(received, message));
+    assertTrue(received.isEmpty());
+  }
+}
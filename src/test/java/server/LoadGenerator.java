@@ -0,0 +1,322 @@
+package server;
+
+import communication.Connection;
+import communication.messages.FinishedWordRequest;
+import communication.messages.JoinGameRequest;
+import communication.messages.JoinGameResponse;
+import communication.messages.NewGameRequest;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.StartGameRequest;
+import communication.messages.TextRequest;
+import communication.messages.TextResponse;
+import communication.messages.UpdateCountdownNotification;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import server.model.TextToType;
+
+/**
+ * Load generator comparing modes of a running server, e.g. started with and without
+ * {@code --virtual-threads}. Every simulated player has its own connection, a thread sending and a
+ * thread receiving. The players of a game join, start the countdown and then finish a word every
+ * interval. The broadcast latency is measured: the time from a player sending a word to each of
+ * the other players of the game receiving that progress.
+ *
+ * <p>With {@code --pid} the thread count and resident memory of the server process are sampled from
+ * {@code /proc}, so that part only works on Linux.
+ *
+ * <pre>
+ * LoadGenerator [--host=localhost] [--port=4441] [--games=50] [--players=4] [--words=20]
+ *     [--interval=100] [--pid=&lt;server pid&gt;]
+ * </pre>
+ */
+public final class LoadGenerator {
+  private String host = "localhost";
+  private int port = 4441;
+  private int games = 50;
+  private int players = 4;
+  private int words = 20;
+  private long intervalMillis = 100;
+  private long pid;
+
+  private static final int MAX_WORDS = 1000;
+  private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+  private final List<long[]> latencies = new ArrayList<>();
+  private final AtomicLong failedPlayers = new AtomicLong();
+  private volatile boolean sampling = true;
+  private long peakThreads;
+  private long peakRssKilobytes;
+
+  /**
+   * Runs the load generator.
+   *
+   * @param args Options, see the class comment
+   * @throws Exception If the players cannot be run
+   */
+  public static void main(String[] args) throws Exception {
+    LoadGenerator generator = new LoadGenerator();
+    for (String arg : args) {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.startsWith("--host=")) {
+        generator.host = value;
+      } else if (arg.startsWith("--port=")) {
+        generator.port = Integer.parseInt(value);
+      } else if (arg.startsWith("--games=")) {
+        generator.games = Integer.parseInt(value);
+      } else if (arg.startsWith("--players=")) {
+        generator.players = Integer.parseInt(value);
+      } else if (arg.startsWith("--words=")) {
+        generator.words = Integer.parseInt(value);
+      } else if (arg.startsWith("--interval=")) {
+        generator.intervalMillis = Long.parseLong(value);
+      } else if (arg.startsWith("--pid=")) {
+        generator.pid = Long.parseLong(value);
+      } else {
+        throw new IllegalArgumentException("Unknown argument: " + arg);
+      }
+    }
+    generator.run();
+  }
+
+  private void run() throws InterruptedException {
+    Thread sampler = new Thread(this::sampleServer, "server-sampler");
+    sampler.setDaemon(true);
+    if (pid > 0) {
+      sampler.start();
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    Game previous = null;
+    for (int game = 0; game < games; game++) {
+      Game setup = new Game(players, previous);
+      previous = setup;
+      for (int player = 0; player < players; player++) {
+        String name = "g" + game + "p" + player;
+        boolean creator = player == 0;
+        Thread thread = new Thread(() -> runPlayer(setup, name, creator), name);
+        thread.start();
+        threads.add(thread);
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    sampling = false;
+    sampler.join(1000);
+    report();
+  }
+
+  /** Shared by the players of one game to join it in order and to time their words. */
+  private static final class Game {
+    private final CountDownLatch created = new CountDownLatch(1);
+    private final CountDownLatch joined;
+    private final Game previous;
+    private final Map<String, AtomicLongArray> sentNanos = new ConcurrentHashMap<>();
+    private volatile int gameId;
+
+    private Game(int players, Game previous) {
+      joined = new CountDownLatch(players);
+      this.previous = previous;
+    }
+
+    /** Times of the words sent by the given player, indexed by the progress they lead to. */
+    private AtomicLongArray sentNanos(String name) {
+      return sentNanos.computeIfAbsent(name, key -> new AtomicLongArray(MAX_WORDS));
+    }
+  }
+
+  private void runPlayer(Game game, String name, boolean creator) {
+    try {
+      // The server derives game ids from the clock, games created at once would share one
+      Game awaited = creator ? game.previous : game;
+      if (awaited != null && !awaited.created.await(1, TimeUnit.MINUTES)) {
+        throw new IOException("Game not created");
+      }
+      if (creator && awaited != null) {
+        Thread.sleep(2);
+      }
+      Socket socket = new Socket(host, port);
+      socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+      try (Connection connection = new Connection(socket)) {
+        connection.writeMessage(creator
+            ? new NewGameRequest(name) : new JoinGameRequest(game.gameId, name));
+        Object response = connection.readMessage();
+        if (!(response instanceof JoinGameResponse)) {
+          throw new IOException("Cannot join: " + response);
+        }
+        if (creator) {
+          game.gameId = ((JoinGameResponse) response).getGameId();
+          game.created.countDown();
+        }
+        game.joined.countDown();
+        connection.writeMessage(new TextRequest());
+        if (creator) {
+          game.joined.await(1, TimeUnit.MINUTES);
+          connection.writeMessage(new StartGameRequest());
+        }
+        race(connection, game, name);
+      }
+    } catch (IOException | InterruptedException e) {
+      System.err.println(name + " failed: " + e);
+      failedPlayers.incrementAndGet();
+    }
+  }
+
+  private void race(Connection connection, Game game, String name)
+      throws IOException, InterruptedException {
+    int textLength = 0;
+    while (true) {
+      Object message = connection.readMessage();
+      if (message instanceof TextResponse) {
+        textLength = new TextToType(((TextResponse) message).getFullText()).textLength();
+      } else if (message instanceof UpdateCountdownNotification
+          && ((UpdateCountdownNotification) message).getCountdown() == 0) {
+        break;
+      }
+    }
+    // The word finishing the text would end the game for the other players
+    int count = Math.max(0, Math.min(Math.min(words, MAX_WORDS), textLength - 1));
+
+    // Reads in its own thread, so a sending player sleeping does not delay the receipt
+    Receiver receiver = new Receiver(connection, game, name, count);
+    Thread receiving = new Thread(receiver, name + "-receiver");
+    receiving.start();
+    AtomicLongArray sent = game.sentNanos(name);
+    for (int word = 0; word < count; word++) {
+      sent.set(word, System.nanoTime());
+      connection.writeMessage(new FinishedWordRequest(60));
+      Thread.sleep(intervalMillis);
+    }
+    receiving.join();
+    if (receiver.failure != null) {
+      throw receiver.failure;
+    }
+    synchronized (latencies) {
+      latencies.add(receiver.samples.stream().mapToLong(Long::longValue).toArray());
+    }
+  }
+
+  /** Receives the progress of the other players until each of them sent all words. */
+  private final class Receiver implements Runnable {
+    private final Connection connection;
+    private final Game game;
+    private final String name;
+    private final int count;
+    private final List<Long> samples = new ArrayList<>();
+    private final Map<String, Integer> progress = new HashMap<>();
+    private IOException failure;
+
+    private Receiver(Connection connection, Game game, String name, int count) {
+      this.connection = connection;
+      this.game = game;
+      this.name = name;
+      this.count = count;
+    }
+
+    @Override
+    public void run() {
+      try {
+        long lastProgress = System.nanoTime();
+        while (count > 0 && !allFinished()) {
+          Object message = connection.readMessage();
+          long now = System.nanoTime();
+          // Heartbeats keep the connection open even if another player failed
+          if (now - lastProgress > TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MILLIS)) {
+            throw new IOException("No progress from " + progress);
+          }
+          if (message instanceof PlayerFinishedWord) {
+            PlayerFinishedWord word = (PlayerFinishedWord) message;
+            if (received(word.getPlayerName(), word.getWordProgress(), now)) {
+              lastProgress = now;
+            }
+          } else if (message instanceof ProgressUpdateNotification) {
+            ProgressUpdateNotification update = (ProgressUpdateNotification) message;
+            for (int i = 0; i < update.getPlayerCount(); i++) {
+              if (received(update.getPlayerName(i), update.getWordProgress(i), now)) {
+                lastProgress = now;
+              }
+            }
+          }
+        }
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+
+    private boolean allFinished() {
+      return progress.size() == players - 1
+          && progress.values().stream().allMatch(word -> word == count - 1);
+    }
+
+    private boolean received(String player, int word, long now) {
+      if (name.equals(player) || word < 0 || word >= count) {
+        return false;
+      }
+      progress.put(player, word);
+      // Words coalesced into one batch are timed by the newest of them
+      samples.add(now - game.sentNanos(player).get(word));
+      return true;
+    }
+  }
+
+  private void sampleServer() {
+    Path status = Paths.get("/proc", Long.toString(pid), "status");
+    while (sampling) {
+      try {
+        for (String line : Files.readAllLines(status)) {
+          if (line.startsWith("Threads:")) {
+            peakThreads = Math.max(peakThreads, parseNumber(line));
+          } else if (line.startsWith("VmRSS:")) {
+            peakRssKilobytes = Math.max(peakRssKilobytes, parseNumber(line));
+          }
+        }
+        Thread.sleep(200);
+      } catch (IOException e) {
+        System.err.println("Cannot sample the server: " + e);
+        return;
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private static long parseNumber(String line) {
+    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+  }
+
+  private void report() {
+    long[] all;
+    synchronized (latencies) {
+      all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    }
+    System.out.printf("players %d (%d failed), deliveries %d%n", games * players,
+        failedPlayers.get(), all.length);
+    if (all.length > 0) {
+      System.out.printf("broadcast latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+          percentile(all, 50), percentile(all, 99), all[all.length - 1] / 1e6);
+    }
+    if (pid > 0) {
+      System.out.printf("server peak threads %d, peak RSS %d MiB%n", peakThreads,
+          peakRssKilobytes / 1024);
+    }
+  }
+
+  private static double percentile(long[] sorted, int percent) {
+    int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+}
@@ -0,0 +1,97 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import communication.EncodedMessage;
+import communication.messages.PlayerFinishedWord;
+import communication.messages.PlayerJoinedNotification;
+import communication.messages.PlayerLeftNotification;
+import communication.messages.ProgressUpdateNotification;
+import communication.messages.UpdateCountdownNotification;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Test class for the outbound queue of a channel. */
+public class OutboundQueueTest {
+
+  @Test
+  @DisplayName("newer progress and countdowns should replace the pending ones they supersede")
+  public void testSupersede() {
+    OutboundQueue queue = new OutboundQueue();
+    assertTrue(queue.offer(EncodedMessage.of(new UpdateCountdownNotification(3)), false, false));
+    assertFalse(queue.offer(EncodedMessage.of(new PlayerFinishedWord("Alice", 1, 40)), false,
+        false));
+    queue.offer(EncodedMessage.of(new PlayerJoinedNotification("Bob")), false, false);
+    queue.offer(EncodedMessage.of(new PlayerFinishedWord("Alice", 2, 45)), false, false);
+    queue.offer(EncodedMessage.of(new UpdateCountdownNotification(2)), false, false);
+
+    List<OutboundQueue.Entry> entries = queue.drain();
+    assertEquals(3, entries.size());
+    assertEquals(2, ((UpdateCountdownNotification) entries.get(0).getMessage().getMessage())
+        .getCountdown());
+    assertEquals(2, ((PlayerFinishedWord) entries.get(1).getMessage().getMessage())
+        .getWordProgress());
+    assertTrue(entries.get(2).getMessage().getMessage() instanceof PlayerJoinedNotification);
+
+    assertTrue(queue.drain().isEmpty());
+    assertTrue(queue.offer(EncodedMessage.of(new UpdateCountdownNotification(1)), false, false));
+  }
+
+  @Test
+  @DisplayName("pending progress batches should be merged, keeping the newest progress per player")
+  public void testMergeProgress() {
+    OutboundQueue queue = new OutboundQueue();
+    queue.offer(EncodedMessage.of(new ProgressUpdateNotification(new String[] {"Alice", "Bob"},
+        new int[] {1, 4}, new int[] {40, 60})), false, false);
+    queue.offer(EncodedMessage.of(new ProgressUpdateNotification(new String[] {"Alice"},
+        new int[] {2}, new int[] {45})), false, false);
+
+    List<OutboundQueue.Entry> entries = queue.drain();
+    assertEquals(1, entries.size());
+    ProgressUpdateNotification update =
+        (ProgressUpdateNotification) entries.get(0).getMessage().getMessage();
+    assertEquals(2, update.getPlayerCount());
+    assertEquals("Alice", update.getPlayerName(0));
+    assertEquals(2, update.getWordProgress(0));
+    assertEquals("Bob", update.getPlayerName(1));
+    assertEquals(4, update.getWordProgress(1));
+  }
+
+  @Test
+  @DisplayName("progress queued after a player left should stay ahead of the leave")
+  public void testProgressBeforeLeave() {
+    OutboundQueue queue = new OutboundQueue();
+    queue.offer(EncodedMessage.of(new ProgressUpdateNotification(new String[] {"Alice"},
+        new int[] {1}, new int[] {40})), false, false);
+    queue.offer(EncodedMessage.of(new PlayerFinishedWord("Alice", 1, 40)), false, false);
+    queue.offer(EncodedMessage.of(new PlayerLeftNotification("Alice")), false, false);
+    queue.offer(EncodedMessage.of(new ProgressUpdateNotification(new String[] {"Alice", "Bob"},
+        new int[] {2, 3}, new int[] {45, 50})), false, false);
+    queue.offer(EncodedMessage.of(new PlayerFinishedWord("Alice", 2, 45)), false, false);
+
+    List<OutboundQueue.Entry> entries = queue.drain();
+    assertEquals(3, entries.size());
+    ProgressUpdateNotification update =
+        (ProgressUpdateNotification) entries.get(0).getMessage().getMessage();
+    assertEquals(2, update.getPlayerCount());
+    assertEquals(2, update.getWordProgress(0));
+    assertEquals(2, ((PlayerFinishedWord) entries.get(1).getMessage().getMessage())
+        .getWordProgress());
+    assertTrue(entries.get(2).getMessage().getMessage() instanceof PlayerLeftNotification);
+  }
+
+  @Test
+  @DisplayName("a client with too many pending messages should be lagging")
+  public void testLagging() {
+    OutboundQueue queue = new OutboundQueue();
+    for (int i = 0; i < OutboundQueue.MAX_PENDING; i++) {
+      queue.offer(EncodedMessage.of(new PlayerJoinedNotification("Player" + i)), false, false);
+    }
+    assertFalse(queue.isLagging());
+    queue.offer(EncodedMessage.of(new PlayerJoinedNotification("Eve")), false, false);
+    assertTrue(queue.isLagging());
+  }
+}
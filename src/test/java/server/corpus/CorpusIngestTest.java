@@ -0,0 +1,129 @@
+package server.corpus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.model.TextToType;
+
+/** Test class for building corpus packs from raw text. */
+public class CorpusIngestTest {
+
+  @Test
+  @DisplayName("typographic characters and whitespace should be normalized")
+  public void testNormalize() {
+    assertEquals("\"It's - so...\" she said.",
+        CorpusIngest.normalize("  \u201CIt\u2019s \u2014 so\u2026\u201D\tshe\u00A0\u00A0said. "));
+    assertEquals("", CorpusIngest.normalize(" \t\uFEFF "));
+  }
+
+  @Test
+  @DisplayName("raw files should be cut into sentence passages without duplicates")
+  public void testIngest() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("ingest");
+    Path first = directory.resolve("first.txt");
+    Path second = directory.resolve("second.txt");
+    Path pack = directory.resolve("corpus.pack");
+    String text =
+        "One two three four.\nFive six\n\nseven eight. Nine ten eleven twelve thirteen.\n";
+    Files.writeString(first, text);
+    Files.writeString(second, text);
+    try {
+      CorpusIngest.Statistics statistics =
+          new CorpusIngest(4, 6, 2).run(pack, List.of(first, second));
+      assertEquals(3, statistics.getPassages());
+      assertEquals(3, statistics.getDuplicates());
+
+      try (MappedCorpus corpus = MappedCorpus.open(pack)) {
+        for (int i = 0; i < corpus.size(); i++) {
+          TextToType passage = corpus.getText(i);
+          for (int word = 0; word < passage.textLength(); word++) {
+            assertFalse(passage.getWord(word).isEmpty());
+          }
+        }
+      }
+    } finally {
+      for (Path file : List.of(first, second, pack, directory)) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("readers should wait for a slow writer and stop when the writer fails")
+  public void testFullQueue() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("ingest");
+    List<Path> inputs = new ArrayList<>();
+    for (int file = 0; file < 4; file++) {
+      StringBuilder text = new StringBuilder();
+      for (int passage = 0; passage < 50; passage++) {
+        text.append("File ").append(file).append(" passage ").append(passage).append(".\n");
+      }
+      inputs.add(Files.writeString(directory.resolve(file + ".txt"), text));
+    }
+    Path pack = directory.resolve("corpus.pack");
+    try {
+      // Every reader finishes with a full queue
+      CorpusIngest.Statistics statistics = assertTimeoutPreemptively(Duration.ofSeconds(10),
+          () -> new CorpusIngest(4, 4, 4, 1).run(pack, inputs));
+      assertEquals(200, statistics.getPassages());
+
+      // The pack cannot be created, so nothing takes passages out of the queue
+      Path unwritable = directory.resolve("missing").resolve("corpus.pack");
+      assertThrows(IOException.class, () -> new CorpusIngest(4, 4, 4, 1).run(unwritable, inputs));
+      for (int i = 0; i < 100 && readersAlive(); i++) {
+        Thread.sleep(50);
+      }
+      assertFalse(readersAlive());
+    } finally {
+      for (Path file : inputs) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(pack);
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @Test
+  @DisplayName("a failed ingestion should leave the previous pack and no partial files")
+  public void testFailedIngest() throws IOException {
+    Path directory = Files.createTempDirectory("ingest");
+    Path input = Files.writeString(directory.resolve("input.txt"), "One two three four.\n");
+    Path missing = directory.resolve("missing.txt");
+    Path pack = Files.writeString(directory.resolve("corpus.pack"), "previous");
+    try {
+      assertThrows(IOException.class,
+          () -> new CorpusIngest(4, 6, 2).run(pack, List.of(input, missing)));
+      assertEquals("previous", Files.readString(pack));
+
+      // Interrupted while taking the first passage
+      Thread.currentThread().interrupt();
+      assertThrows(InterruptedException.class,
+          () -> new CorpusIngest(4, 6, 2).run(pack, List.of(input)));
+      assertEquals("previous", Files.readString(pack));
+
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(2, files.count());
+      }
+    } finally {
+      for (Path file : List.of(input, pack, directory)) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private static boolean readersAlive() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .anyMatch(thread -> thread.getName().equals("corpus-reader"));
+  }
+}
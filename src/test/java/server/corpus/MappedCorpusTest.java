@@ -0,0 +1,66 @@
+package server.corpus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.model.Difficulty;
+import server.model.PassageLength;
+import server.model.TextCorpus;
+import server.model.TextToType;
+
+/** Test class for corpus packs. */
+public class MappedCorpusTest {
+
+  @Test
+  @DisplayName("passages written to a pack should be read back by id and by bucket")
+  public void testWriteAndRead() throws IOException {
+    Path pack = Files.createTempFile("corpus", ".pack");
+    try {
+      try (CorpusPackWriter writer = new CorpusPackWriter(pack)) {
+        writer.add("the quick brown fox");
+        writer.add("Gr\u00fc\u00dfe aus K\u00f6ln, 2024!");
+        writer.add("jumps over the lazy dog");
+      }
+
+      try (MappedCorpus corpus = MappedCorpus.open(pack)) {
+        assertEquals(3, corpus.size());
+        TextToType text = corpus.getText(1);
+        assertEquals("Gr\u00fc\u00dfe aus K\u00f6ln, 2024!", text.getFullText());
+        assertEquals(1, text.getTextId());
+        assertEquals("K\u00f6ln,", text.getWord(2));
+        assertEquals("lazy", corpus.getText(2).getWord(3));
+        assertEquals(4, corpus.getWordCount(0));
+        assertEquals(0, corpus.getRarePermille(0));
+        assertEquals(4, corpus.getWordCount(1));
+        assertSame(corpus.getText(1), text);
+
+        int shortEasy = TextCorpus.bucket(PassageLength.SHORT, Difficulty.EASY);
+        assertEquals(2, corpus.getBucketSize(shortEasy));
+        assertEquals(0, corpus.getTextId(shortEasy, 0));
+        assertEquals(2, corpus.getTextId(shortEasy, 1));
+        int longEasy = TextCorpus.bucket(PassageLength.LONG, Difficulty.EASY);
+        assertEquals(0, corpus.getBucketSize(longEasy));
+      }
+    } finally {
+      Files.delete(pack);
+    }
+  }
+
+  @Test
+  @DisplayName("files that are no pack should be rejected")
+  public void testRejectInvalidFile() throws IOException {
+    Path file = Files.createTempFile("corpus", ".txt");
+    try {
+      Files.writeString(file, "the quick brown fox\njumps over the lazy dog\n");
+      assertThrows(IOException.class, () -> MappedCorpus.open(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}